@@ -0,0 +1,93 @@
+package com.example.account;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * seeds users, accounts and one USE transaction per account straight into H2 with SYSTEM_RANGE
+ * account x belongs to user FIRST_USER_ID + x % users, seeded numbers sit above the range the allocator hands out
+ */
+public final class BenchmarkData {
+    public static final int ACCOUNTS_PER_USER = 5;
+    public static final long FIRST_USER_ID = 2;
+    public static final long SEEDED_AMOUNT = 1000;
+
+    private static final long FIRST_ACCOUNT_NUMBER = 9_000_000_000L;
+
+    private final int accounts;
+    private final int users;
+
+    private BenchmarkData(int accounts) {
+        this.accounts = accounts;
+        this.users = accounts / ACCOUNTS_PER_USER;
+    }
+
+    /**
+     * spareUsers are created without accounts, for benchmarks that open new ones
+     */
+    public static BenchmarkData seed(JdbcTemplate jdbcTemplate, int accounts, long balance, int spareUsers) {
+        BenchmarkData data = new BenchmarkData(accounts);
+        jdbcTemplate.update("insert into account_user(id, name, created_at, updated_at) " +
+                "select x, concat('user', x), now(), now() from system_range(?, ?)",
+                FIRST_USER_ID, FIRST_USER_ID + data.users + spareUsers - 1);
+        jdbcTemplate.update("insert into account(id, account_user_id, account_number, account_status, balance, version, " +
+                "registered_at, created_at, updated_at) " +
+                "select x, ? + mod(x, ?), cast(? + x as varchar), 'IN_USE', ?, 0, now(), now(), now() " +
+                "from system_range(1, ?)",
+                FIRST_USER_ID, data.users, FIRST_ACCOUNT_NUMBER, balance, accounts);
+        jdbcTemplate.update("insert into transaction(id, transaction_type, transaction_result_type, account_id, amount, " +
+                "balance_snapshot, transcation_id, transacted_at, created_at, updated_at) " +
+                "select ? + x, 'USE', 'S', x, ?, ?, concat('seed', x), now(), now(), now() " +
+                "from system_range(1, ?)",
+                accounts, SEEDED_AMOUNT, balance - SEEDED_AMOUNT, accounts);
+        jdbcTemplate.execute("alter sequence hibernate_sequence restart with " + (2L * accounts + 1));
+        jdbcTemplate.execute("analyze");
+        return data;
+    }
+
+    /**
+     * count more USE transactions for benchmarks that use one up per call, e.g. cancels
+     * the n-th one (from 0) belongs to row 1 + n % accounts, ids come from hibernate_sequence like the ones the app writes
+     */
+    public void seedUses(JdbcTemplate jdbcTemplate, String prefix, int count) {
+        jdbcTemplate.update("insert into transaction(id, transaction_type, transaction_result_type, account_id, amount, " +
+                "transcation_id, transacted_at, created_at, updated_at) " +
+                "select next value for hibernate_sequence, 'USE', 'S', 1 + mod(x - 1, ?), ?, concat(?, x - 1), now(), now(), now() " +
+                "from system_range(1, ?)",
+                accounts, SEEDED_AMOUNT, prefix, count);
+    }
+
+    public int useRow(int n) {
+        return 1 + n % accounts;
+    }
+
+    public String useTransactionId(String prefix, int n) {
+        return prefix + n;
+    }
+
+    public int accounts() {
+        return accounts;
+    }
+
+    public int users() {
+        return users;
+    }
+
+    /**
+     * rows are numbered from 1
+     */
+    public String accountNumber(int row) {
+        return String.valueOf(FIRST_ACCOUNT_NUMBER + row);
+    }
+
+    public long userId(int row) {
+        return FIRST_USER_ID + row % users;
+    }
+
+    public String transactionId(int row) {
+        return "seed" + row;
+    }
+
+    public long firstSpareUserId() {
+        return FIRST_USER_ID + users;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.account.controller;
+
+import com.example.account.BenchmarkContext;
+import com.example.account.service.AccountService;
+import com.example.account.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /transaction/{transactionId} over http with a hot and cold key mix
+ * cacheSize = 0 is the uncached baseline, hot keys are written last so they start out cached
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class QueryTransactionBenchmark {
+    private static final int HOT_KEYS = 100;
+    private static final int COLD_KEYS = 10_000;
+
+    @Param({"0", "1000"})
+    public int cacheSize;
+
+    @Param({"0.9", "0.5"})
+    public double hotRatio;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private URI[] hotUris;
+    private URI[] coldUris;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(
+                "account.lock.mode=local",
+                "account.transaction-cache.maximum-size=" + cacheSize);
+        TransactionService transactionService = context.getBean(TransactionService.class);
+        String accountNumber = context.getBean(AccountService.class)
+                .createAccount(1L, (long) (HOT_KEYS + COLD_KEYS))
+                .getAccountNumber();
+
+        String baseUrl = "http://localhost:" + BenchmarkContext.httpPort(context) + "/transaction/";
+        coldUris = new URI[COLD_KEYS];
+        for (int i = 0; i < COLD_KEYS; i++) {
+            coldUris[i] = URI.create(baseUrl + transactionService.useBalance(1L, accountNumber, 1L).getTranscationId());
+        }
+        hotUris = new URI[HOT_KEYS];
+        for (int i = 0; i < HOT_KEYS; i++) {
+            hotUris[i] = URI.create(baseUrl + transactionService.useBalance(1L, accountNumber, 1L).getTranscationId());
+        }
+        httpClient = HttpClient.newHttpClient();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int queryTransaction() throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        URI[] uris = random.nextDouble() < hotRatio ? hotUris : coldUris;
+        HttpRequest request = HttpRequest.newBuilder(uris[random.nextInt(uris.length)]).GET().build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
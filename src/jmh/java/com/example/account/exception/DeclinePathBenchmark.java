@@ -0,0 +1,56 @@
+package com.example.account.exception;
+
+import com.example.account.domain.Account;
+import com.example.account.type.ErrorCode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * a declined debit thrown from below a call stack of the given depth and caught at the top,
+ * roughly what a request goes through between the servlet and the entity
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DeclinePathBenchmark {
+
+    @Param({"false", "true"})
+    public boolean stackTrace;
+
+    @Param({"20", "150"})
+    public int depth;
+
+    private Account account;
+
+    @Setup
+    public void setUp() {
+        AccountException.setStackTraceEnabled(stackTrace);
+        account = Account.builder().balance(1000L).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        AccountException.setStackTraceEnabled(false);
+    }
+
+    @Benchmark
+    public ErrorCode decline() {
+        try {
+            return debit(depth);
+        } catch (AccountException e) {
+            return e.getErrorCode();
+        }
+    }
+
+    private ErrorCode debit(int remaining) {
+        if (remaining == 0) {
+            account.useBalance(2000L);
+            return null;
+        }
+        return debit(remaining - 1);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.account.repository;
+
+import com.example.account.BenchmarkContext;
+import com.example.account.BenchmarkData;
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.Transaction;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * lookups by the indexed columns should cost about the same at every table size
+ * rows are seeded with BenchmarkData, five accounts and one transaction per account per user
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class LookupVolumeBenchmark {
+    @Param({"10000", "1000000", "3000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private AccountRepository accountRepository;
+    private TransactionRepository transactionRepository;
+    private BenchmarkData data;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(
+                "spring.datasource.url=jdbc:h2:mem:volume" + rows,
+                "account.lock.mode=local");
+        accountRepository = context.getBean(AccountRepository.class);
+        transactionRepository = context.getBean(TransactionRepository.class);
+        data = BenchmarkData.seed(context.getBean(JdbcTemplate.class), rows, 10_000L, 0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Account> findByAccountNumber() {
+        return accountRepository.findByAccountNumber(data.accountNumber(randomRow()));
+    }
+
+    @Benchmark
+    public Optional<Transaction> findByTranscationId() {
+        return transactionRepository.findByTranscationId(data.transactionId(randomRow()));
+    }
+
+    @Benchmark
+    public Integer countByAccountUser() {
+        long userId = data.userId(randomRow());
+        return accountRepository.countByAccountUser(AccountUser.builder().id(userId).build());
+    }
+
+    private int randomRow() {
+        return 1 + ThreadLocalRandom.current().nextInt(rows);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.account.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * block size 1 behaves like a remote round trip per created account,
+ * the thread variants show how throughput scales once blocks are served from memory
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public abstract class AccountNumberAllocatorBenchmark {
+    private static final long ROUND_TRIP_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Param({"1", "100", "1000"})
+    public int blockSize;
+
+    private AccountNumberAllocator allocator;
+
+    @Setup
+    public void setUp() {
+        AtomicLong counter = new AtomicLong();
+        allocator = new BlockAccountNumberAllocator(size -> {
+            LockSupport.parkNanos(ROUND_TRIP_NANOS);
+            return counter.getAndAdd(size);
+        }, blockSize);
+    }
+
+    @Benchmark
+    public String allocate() {
+        return allocator.allocate();
+    }
+
+    @Threads(1)
+    public static class OneThread extends AccountNumberAllocatorBenchmark {
+    }
+
+    @Threads(4)
+    public static class FourThreads extends AccountNumberAllocatorBenchmark {
+    }
+
+    @Threads(16)
+    public static class SixteenThreads extends AccountNumberAllocatorBenchmark {
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.account.service;
+
+import com.example.account.BenchmarkContext;
+import com.example.account.BenchmarkData;
+import com.example.account.dto.AccountDto;
+import com.example.account.dto.AccountInfo;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AccountService against the real H2 schema with the account summary cache in front of the listing
+ * createAccount walks the spare users round robin, each takes at most ten accounts,
+ * so a trial can open SPARE_USERS * 10 accounts before it starts failing
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public abstract class AccountServiceBenchmark {
+    private static final int SPARE_USERS = 200_000;
+
+    @Param({"10000", "100000", "1000000"})
+    public int accounts;
+
+    private ConfigurableApplicationContext context;
+    private AccountService accountService;
+    private BenchmarkData data;
+    private final AtomicLong created = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(
+                "spring.datasource.url=jdbc:h2:mem:account" + accounts,
+                "account.lock.mode=local");
+        accountService = context.getBean(AccountService.class);
+        data = BenchmarkData.seed(context.getBean(JdbcTemplate.class), accounts, 10_000L, SPARE_USERS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public AccountDto createAccount() {
+        long userId = data.firstSpareUserId() + created.getAndIncrement() % SPARE_USERS;
+        return accountService.createAccount(userId, 10_000L);
+    }
+
+    @Benchmark
+    public List<AccountInfo> getAccoutsByUserId() {
+        int row = 1 + ThreadLocalRandom.current().nextInt(accounts);
+        return accountService.getAccoutsByUserId(data.userId(row));
+    }
+
+    @Threads(1)
+    public static class OneThread extends AccountServiceBenchmark {
+    }
+
+    @Threads(8)
+    public static class EightThreads extends AccountServiceBenchmark {
+    }
+
+    @Threads(32)
+    public static class ThirtyTwoThreads extends AccountServiceBenchmark {
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.account.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * sample time mode reports p50/p90/p99 per provider
+ * accounts = 1 puts every thread on the same hot account
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class LockServiceBenchmark {
+
+    @Param({"local", "redis"})
+    public String mode;
+
+    @Param({"1", "1000"})
+    public int accounts;
+
+    private EmbeddedRedis embeddedRedis;
+    private LockService lockService;
+    private String[] accountNumbers;
+
+    @Setup
+    public void setUp() throws IOException {
+        accountNumbers = new String[accounts];
+        for (int i = 0; i < accounts; i++) {
+            accountNumbers[i] = String.valueOf(1_000_000_000L + i);
+        }
+
+        if ("redis".equals(mode)) {
+            embeddedRedis = new EmbeddedRedis();
+            lockService = new RedisLockService(embeddedRedis.getRedissonClient());
+        } else {
+            lockService = new LocalLockService(1024);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (embeddedRedis != null) {
+            embeddedRedis.close();
+        }
+    }
+
+    @Benchmark
+    public boolean lockAndUnlock() throws InterruptedException {
+        String accountNumber = accountNumbers[ThreadLocalRandom.current().nextInt(accountNumbers.length)];
+        boolean locked = lockService.tryLock(accountNumber, 5000, 5000, TimeUnit.MILLISECONDS);
+        if (locked) {
+            lockService.unlock(accountNumber);
+        }
+        return locked;
+    }
+}
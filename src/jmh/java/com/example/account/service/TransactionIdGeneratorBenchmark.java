@@ -0,0 +1,42 @@
+package com.example.account.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * uuid is the id format used before, snowflake is what buildTransaction uses now
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public abstract class TransactionIdGeneratorBenchmark {
+    private TransactionIdGenerator generator;
+
+    @Setup
+    public void setUp() {
+        generator = new SnowflakeTransactionIdGenerator(1);
+    }
+
+    @Benchmark
+    public String uuid() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+
+    @Benchmark
+    public String snowflake() {
+        return generator.generate();
+    }
+
+    @Threads(1)
+    public static class OneThread extends TransactionIdGeneratorBenchmark {
+    }
+
+    @Threads(32)
+    public static class ThirtyTwoThreads extends TransactionIdGeneratorBenchmark {
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.account.service;
+
+import com.example.account.BenchmarkContext;
+import com.example.account.BenchmarkData;
+import com.example.account.dto.TransactionDto;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * TransactionService through its aspects and the real H2 schema, no http in between
+ * use and query pick a random seeded account and cancels walk the accounts in turn, so threads rarely meet on one lock
+ * cancelBalance cancels a USE transaction that no call has cancelled yet, a fresh pool is seeded before every iteration
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public abstract class TransactionServiceBenchmark {
+    // enough that no account runs dry during a trial
+    private static final long BALANCE = 1_000_000_000_000L;
+    // more cancels than one iteration gets through
+    private static final int CANCEL_POOL = 500_000;
+
+    @Param({"10000", "100000", "1000000"})
+    public int accounts;
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private BenchmarkData data;
+    private final AtomicInteger nextCancel = new AtomicInteger();
+    private String cancelPrefix;
+    private int iteration;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(
+                "spring.datasource.url=jdbc:h2:mem:transaction" + accounts,
+                "account.lock.mode=local");
+        transactionService = context.getBean(TransactionService.class);
+        data = BenchmarkData.seed(context.getBean(JdbcTemplate.class), accounts, BALANCE, 0);
+    }
+
+    /**
+     * seeding is not measured, only the cancel benchmark pays for it
+     */
+    @Setup(Level.Iteration)
+    public void seedCancelPool(BenchmarkParams params) {
+        if (!params.getBenchmark().endsWith(".cancelBalance")) {
+            return;
+        }
+        cancelPrefix = "cancel" + (++iteration) + "-";
+        nextCancel.set(0);
+        data.seedUses(context.getBean(JdbcTemplate.class), cancelPrefix, CANCEL_POOL);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public TransactionDto useBalance() {
+        int row = randomRow();
+        return transactionService.useBalance(data.userId(row), data.accountNumber(row), 1L);
+    }
+
+    @Benchmark
+    public TransactionDto cancelBalance() {
+        int n = nextCancel.getAndIncrement();
+        if (n >= CANCEL_POOL) {
+            throw new IllegalStateException("cancel pool of " + CANCEL_POOL + " ran out, raise CANCEL_POOL");
+        }
+        return transactionService.cancelBalance(data.useTransactionId(cancelPrefix, n),
+                data.accountNumber(data.useRow(n)), BenchmarkData.SEEDED_AMOUNT);
+    }
+
+    @Benchmark
+    public TransactionDto queryTransaction() {
+        return transactionService.queryTransaction(data.transactionId(randomRow()));
+    }
+
+    private int randomRow() {
+        return 1 + ThreadLocalRandom.current().nextInt(accounts);
+    }
+
+    @Threads(1)
+    public static class OneThread extends TransactionServiceBenchmark {
+    }
+
+    @Threads(8)
+    public static class EightThreads extends TransactionServiceBenchmark {
+    }
+
+    @Threads(32)
+    public static class ThirtyTwoThreads extends TransactionServiceBenchmark {
+    }
+}
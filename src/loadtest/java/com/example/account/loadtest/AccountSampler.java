@@ -0,0 +1,55 @@
+package com.example.account.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * picks the index of the account a request goes to
+ * with zipf, index 0 is the hottest account and index k is drawn with weight 1 / (k + 1)^exponent
+ */
+final class AccountSampler {
+    private final int size;
+    private final double[] cumulative;
+
+    private AccountSampler(int size, double[] cumulative) {
+        this.size = size;
+        this.cumulative = cumulative;
+    }
+
+    static AccountSampler uniform(int size) {
+        return new AccountSampler(size, null);
+    }
+
+    static AccountSampler zipf(int size, double exponent) {
+        double[] cumulative = new double[size];
+        double total = 0;
+        for (int k = 0; k < size; k++) {
+            total += 1 / Math.pow(k + 1, exponent);
+            cumulative[k] = total;
+        }
+        for (int k = 0; k < size; k++) {
+            cumulative[k] /= total;
+        }
+        return new AccountSampler(size, cumulative);
+    }
+
+    static AccountSampler of(String skew, int size, double exponent) {
+        switch (skew) {
+            case "uniform":
+                return uniform(size);
+            case "zipf":
+                return zipf(size, exponent);
+            default:
+                throw new IllegalArgumentException("unknown skew : " + skew);
+        }
+    }
+
+    int next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (cumulative == null) {
+            return random.nextInt(size);
+        }
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(size - 1, index >= 0 ? index : -index - 1);
+    }
+}
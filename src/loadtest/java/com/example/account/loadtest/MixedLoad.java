@@ -0,0 +1,348 @@
+package com.example.account.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * closed loop driver for a mix of account and transaction requests
+ *
+ * every worker sends one request at a time, with a target rate each worker also follows a fixed schedule
+ * and latency is measured from the time the request was due, not from when it could be sent,
+ * so a stalled server is charged for the requests queued behind the stall (coordinated omission)
+ * the time from the actual send is kept as the uncorrected histogram to show the difference
+ */
+final class MixedLoad {
+    static final long AMOUNT = 10;
+
+    private static final int CANCELLABLE_CAPACITY = 100_000;
+    private static final int RECENT_CAPACITY = 100_000;
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    enum Operation {
+        LIST, CREATE, USE, CANCEL, QUERY
+    }
+
+    static final class SeededAccount {
+        final long userId;
+        final String accountNumber;
+
+        SeededAccount(long userId, String accountNumber) {
+            this.userId = userId;
+            this.accountNumber = accountNumber;
+        }
+    }
+
+    private static final class Used {
+        final String accountNumber;
+        final String transactionId;
+
+        Used(String accountNumber, String transactionId) {
+            this.accountNumber = accountNumber;
+            this.transactionId = transactionId;
+        }
+    }
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(30))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+    private final List<SeededAccount> accounts;
+    private final AccountSampler sampler;
+    private final Operation[] operations;
+    private final double[] cumulativeWeights;
+    private final long firstSpareUserId;
+    private final int spareUsers;
+
+    private final BlockingQueue<Used> cancellable = new ArrayBlockingQueue<>(CANCELLABLE_CAPACITY);
+    private final AtomicReferenceArray<String> recent = new AtomicReferenceArray<>(RECENT_CAPACITY);
+    private final AtomicLong recentCount = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+
+    MixedLoad(int port, List<SeededAccount> accounts, AccountSampler sampler, Map<Operation, Integer> mix,
+              long firstSpareUserId, int spareUsers) {
+        this.baseUrl = "http://localhost:" + port;
+        this.accounts = accounts;
+        this.sampler = sampler;
+        this.operations = mix.keySet().toArray(new Operation[0]);
+        this.cumulativeWeights = new double[operations.length];
+        double total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        double cumulative = 0;
+        for (int i = 0; i < operations.length; i++) {
+            cumulative += mix.get(operations[i]) / total;
+            cumulativeWeights[i] = cumulative;
+        }
+        this.firstSpareUserId = firstSpareUserId;
+        this.spareUsers = spareUsers;
+    }
+
+    /**
+     * use:50,cancel:10 into weights per operation
+     */
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split(":");
+            int weight = Integer.parseInt(pair[1]);
+            if (weight > 0) {
+                weights.put(Operation.valueOf(pair[0].toUpperCase(Locale.ROOT)), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("empty mix : " + mix);
+        }
+        return weights;
+    }
+
+    /**
+     * a transaction cancel and query can start from before the run
+     */
+    void seedTransaction(String accountNumber, String transactionId) {
+        cancellable.offer(new Used(accountNumber, transactionId));
+        recent.set((int) (recentCount.getAndIncrement() % RECENT_CAPACITY), transactionId);
+    }
+
+    /**
+     * rate 0 drops the schedule, every worker sends its next request as soon as the last one returned
+     */
+    Result run(int concurrency, int rate, Duration warmup, Duration duration) throws InterruptedException {
+        long intervalNanos = rate > 0 ? TimeUnit.SECONDS.toNanos(concurrency) / rate : 0;
+        long start = System.nanoTime();
+        long measureStart = start + warmup.toNanos();
+        long end = measureStart + duration.toNanos();
+
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        List<Callable<Recording>> workers = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            long firstDue = start + intervalNanos * i / concurrency;
+            workers.add(() -> work(firstDue, intervalNanos, measureStart, end));
+        }
+        Recording total = new Recording();
+        try {
+            for (Future<Recording> future : executor.invokeAll(workers)) {
+                total.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("load worker failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return new Result(total, duration, concurrency, rate);
+    }
+
+    private Recording work(long firstDue, long intervalNanos, long measureStart, long end) {
+        Recording recording = new Recording();
+        long due = firstDue;
+        while (!Thread.currentThread().isInterrupted()) {
+            long intended = intervalNanos > 0 ? due : System.nanoTime();
+            if (intended >= end) {
+                break;
+            }
+            due += intervalNanos;
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            Operation operation = nextOperation();
+            Used used = null;
+            if (operation == Operation.CANCEL) {
+                used = cancellable.poll();
+                if (used == null) {
+                    // nothing left to cancel, debit instead so the offered load stays the same
+                    operation = Operation.USE;
+                }
+            }
+            long sent = System.nanoTime();
+            String status = send(operation, used);
+            long done = System.nanoTime();
+            if (intended >= measureStart) {
+                recording.record(operation, status, done - intended, done - sent);
+            }
+        }
+        return recording;
+    }
+
+    private Operation nextOperation() {
+        double value = ThreadLocalRandom.current().nextDouble();
+        for (int i = 0; i < operations.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    private String send(Operation operation, Used used) {
+        try {
+            if (operation == Operation.USE) {
+                HttpResponse<String> response = httpClient.send(request(operation, used), HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() == 200) {
+                    remember(response.body());
+                }
+                return String.valueOf(response.statusCode());
+            }
+            return String.valueOf(httpClient.send(request(operation, used), HttpResponse.BodyHandlers.discarding()).statusCode());
+        } catch (IOException e) {
+            return e.getClass().getSimpleName();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "interrupted";
+        }
+    }
+
+    private HttpRequest request(Operation operation, Used used) {
+        SeededAccount account = accounts.get(sampler.next());
+        switch (operation) {
+            case LIST:
+                return get("/account?user_id=" + account.userId);
+            case CREATE:
+                long userId = firstSpareUserId + created.getAndIncrement() % spareUsers;
+                return post("/account", "{\"userId\":" + userId + ",\"initialBalance\":0}");
+            case USE:
+                return post("/transaction/use", "{\"userId\":" + account.userId + ",\"accountNumber\":\"" +
+                        account.accountNumber + "\",\"amount\":" + AMOUNT + "}");
+            case CANCEL:
+                return post("/transaction/cancel", "{\"transactionId\":\"" + used.transactionId + "\",\"accountNumber\":\"" +
+                        used.accountNumber + "\",\"amount\":" + AMOUNT + "}");
+            case QUERY:
+                long count = Math.min(recentCount.get(), RECENT_CAPACITY);
+                return get("/transaction/" + recent.get(ThreadLocalRandom.current().nextInt((int) count)));
+            default:
+                throw new IllegalArgumentException(operation.name());
+        }
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+    }
+
+    private HttpRequest post(String path, String body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private void remember(String body) throws IOException {
+        JsonNode response = objectMapper.readTree(body);
+        seedTransaction(response.path("accountNumber").asText(), response.path("transactionId").asText());
+    }
+
+    /**
+     * one per worker so recording never contends, merged once the run is over
+     */
+    private static final class Recording {
+        final Map<Operation, Histogram> corrected = new EnumMap<>(Operation.class);
+        final Map<Operation, Histogram> uncorrected = new EnumMap<>(Operation.class);
+        final Map<Operation, Map<String, Long>> statuses = new EnumMap<>(Operation.class);
+
+        void record(Operation operation, String status, long correctedNanos, long uncorrectedNanos) {
+            histogram(corrected, operation).recordValue(Math.max(1, correctedNanos / 1000));
+            histogram(uncorrected, operation).recordValue(Math.max(1, uncorrectedNanos / 1000));
+            statuses.computeIfAbsent(operation, key -> new TreeMap<>()).merge(status, 1L, Long::sum);
+        }
+
+        void add(Recording other) {
+            other.corrected.forEach((operation, histogram) -> histogram(corrected, operation).add(histogram));
+            other.uncorrected.forEach((operation, histogram) -> histogram(uncorrected, operation).add(histogram));
+            other.statuses.forEach((operation, counts) -> counts.forEach((status, count) ->
+                    statuses.computeIfAbsent(operation, key -> new TreeMap<>()).merge(status, count, Long::sum)));
+        }
+
+        private static Histogram histogram(Map<Operation, Histogram> histograms, Operation operation) {
+            return histograms.computeIfAbsent(operation, key -> new Histogram(SIGNIFICANT_DIGITS));
+        }
+    }
+
+    /**
+     * latencies are recorded in microseconds and reported in milliseconds
+     */
+    static final class Result {
+        private static final double MICROS_PER_MILLI = 1000.0;
+
+        private final Recording recording;
+        private final Duration duration;
+        private final int concurrency;
+        private final int rate;
+
+        private Result(Recording recording, Duration duration, int concurrency, int rate) {
+            this.recording = recording;
+            this.duration = duration;
+            this.concurrency = concurrency;
+            this.rate = rate;
+        }
+
+        String summary() {
+            StringWriter text = new StringWriter();
+            PrintWriter out = new PrintWriter(text);
+            double seconds = duration.toMillis() / 1000.0;
+            long total = recording.corrected.values().stream().mapToLong(Histogram::getTotalCount).sum();
+            out.printf("concurrency %d, target %s, measured %.0f s, achieved %.0f req/s%n",
+                    concurrency, rate > 0 ? rate + " req/s" : "unthrottled", seconds, total / seconds);
+            out.printf("%-8s %9s %9s %9s %9s %9s %9s %9s %14s  %s%n",
+                    "op", "count", "req/s", "p50", "p90", "p99", "p99.9", "max", "p99 uncorr.", "status");
+            recording.corrected.forEach((operation, histogram) -> out.printf(
+                    "%-8s %9d %9.0f %9.2f %9.2f %9.2f %9.2f %9.2f %14.2f  %s%n",
+                    operation.name().toLowerCase(Locale.ROOT),
+                    histogram.getTotalCount(),
+                    histogram.getTotalCount() / seconds,
+                    millis(histogram, 50),
+                    millis(histogram, 90),
+                    millis(histogram, 99),
+                    millis(histogram, 99.9),
+                    histogram.getMaxValue() / MICROS_PER_MILLI,
+                    millis(recording.uncorrected.get(operation), 99),
+                    recording.statuses.get(operation)));
+            out.println("latency in ms from the scheduled send time");
+            out.flush();
+            return text.toString();
+        }
+
+        /**
+         * summary.txt plus one percentile distribution per operation, corrected and uncorrected,
+         * in the .hgrm format the HdrHistogram plotter reads
+         */
+        void write(Path directory) throws IOException {
+            Files.createDirectories(directory);
+            Files.writeString(directory.resolve("summary.txt"), summary());
+            for (Operation operation : recording.corrected.keySet()) {
+                String name = operation.name().toLowerCase(Locale.ROOT);
+                writeDistribution(recording.corrected.get(operation), directory.resolve(name + ".hgrm"));
+                writeDistribution(recording.uncorrected.get(operation), directory.resolve(name + "-uncorrected.hgrm"));
+            }
+        }
+
+        private static void writeDistribution(Histogram histogram, Path path) throws IOException {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(path))) {
+                histogram.outputPercentileDistribution(out, MICROS_PER_MILLI);
+            }
+        }
+
+        private static double millis(Histogram histogram, double percentile) {
+            return histogram.getValueAtPercentile(percentile) / MICROS_PER_MILLI;
+        }
+    }
+}
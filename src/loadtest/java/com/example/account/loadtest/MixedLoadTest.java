@@ -0,0 +1,99 @@
+package com.example.account.loadtest;
+
+import com.example.account.AccountApplication;
+import com.example.account.domain.AccountUser;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.service.AccountService;
+import com.example.account.service.TransactionService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.account.loadtest.UseBalanceLoad.freePort;
+import static com.example.account.loadtest.UseBalanceLoad.parse;
+
+/**
+ * boots the application in process and drives a mix of GET/POST /account, /transaction/use,
+ * /transaction/cancel and GET /transaction/{transactionId} for a fixed time, see MixedLoad
+ *
+ * options : --mix=use:50,cancel:10,query:30,list:8,create:2 --concurrency=64 --rate=2000 (0 = unthrottled)
+ *           --duration=60 --warmup=10 (seconds) --accounts=1000 --spare-users=1000
+ *           --skew=uniform|zipf --zipf-exponent=1.0 --out=build/reports/mixed-load
+ * every seeded user owns five accounts, create opens accounts for the spare users, ten each at most
+ */
+public class MixedLoadTest {
+    private static final long FIRST_USER_ID = 7001;
+    private static final int ACCOUNTS_PER_USER = 5;
+    private static final long BALANCE = 1_000_000_000L;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        Map<MixedLoad.Operation, Integer> mix = MixedLoad.parseMix(options.getOrDefault("mix", "use:50,cancel:10,query:30,list:8,create:2"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "64"));
+        int rate = Integer.parseInt(options.getOrDefault("rate", "2000"));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "60")));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "10")));
+        int accounts = Integer.parseInt(options.getOrDefault("accounts", "1000"));
+        int spareUsers = Integer.parseInt(options.getOrDefault("spare-users", "1000"));
+        AccountSampler sampler = AccountSampler.of(options.getOrDefault("skew", "uniform"), accounts,
+                Double.parseDouble(options.getOrDefault("zipf-exponent", "1.0")));
+
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(AccountApplication.class)
+                .properties(
+                        "server.port=0",
+                        "server.tomcat.max-connections=20000",
+                        "spring.redis.port=" + freePort(),
+                        "spring.jpa.properties.hibernate.show_sql=false",
+                        "account.lock.wait-time-ms=10000",
+                        "logging.level.root=WARN");
+
+        try (ConfigurableApplicationContext context = builder.run()) {
+            int users = (accounts + ACCOUNTS_PER_USER - 1) / ACCOUNTS_PER_USER;
+            saveUsers(context, FIRST_USER_ID, users + spareUsers);
+            List<MixedLoad.SeededAccount> seeded = createAccounts(context, accounts);
+
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            MixedLoad load = new MixedLoad(port, seeded, sampler, mix, FIRST_USER_ID + users, spareUsers);
+            TransactionService transactionService = context.getBean(TransactionService.class);
+            for (MixedLoad.SeededAccount account : seeded) {
+                load.seedTransaction(account.accountNumber,
+                        transactionService.useBalance(account.userId, account.accountNumber, MixedLoad.AMOUNT).getTranscationId());
+            }
+
+            MixedLoad.Result result = load.run(concurrency, rate, warmup, duration);
+            System.out.printf("mix : %s, skew : %s, accounts : %d%n", mix, options.getOrDefault("skew", "uniform"), accounts);
+            System.out.print(result.summary());
+            result.write(Paths.get(options.getOrDefault("out", "build/reports/mixed-load")));
+        }
+    }
+
+    private static void saveUsers(ConfigurableApplicationContext context, long firstUserId, int count) {
+        List<AccountUser> users = new ArrayList<>(count);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < count; i++) {
+            users.add(AccountUser.builder()
+                    .id(firstUserId + i)
+                    .name("load" + (firstUserId + i))
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .build());
+        }
+        context.getBean(AccountUserRepository.class).saveAll(users);
+    }
+
+    private static List<MixedLoad.SeededAccount> createAccounts(ConfigurableApplicationContext context, int accounts) {
+        AccountService accountService = context.getBean(AccountService.class);
+        List<MixedLoad.SeededAccount> seeded = new ArrayList<>(accounts);
+        for (int i = 0; i < accounts; i++) {
+            long userId = FIRST_USER_ID + i / ACCOUNTS_PER_USER;
+            seeded.add(new MixedLoad.SeededAccount(userId, accountService.createAccount(userId, BALANCE).getAccountNumber()));
+        }
+        return seeded;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.account.loadtest;
+
+import com.example.account.reactive.ReactiveAccountApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.account.loadtest.UseBalanceLoad.*;
+
+/**
+ * UseBalanceLoadTest against the webflux + r2dbc application
+ * there is no account service on this stack, so users and accounts are inserted directly
+ *
+ * options : --requests=10000 --accounts=1000
+ */
+public class ReactiveUseBalanceLoadTest {
+    private static final long FIRST_ACCOUNT_NUMBER = 5_000_000_000L;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        int requests = Integer.parseInt(options.getOrDefault("requests", "10000"));
+        int accounts = Integer.parseInt(options.getOrDefault("accounts", "1000"));
+
+        try (ConfigurableApplicationContext context = ReactiveAccountApplication.builder()
+                .properties(
+                        "server.port=0",
+                        "spring.redis.port=" + freePort(),
+                        "account.lock.wait-time-ms=10000",
+                        "logging.level.root=WARN")
+                .run()) {
+            List<String> accountNumbers = seed(context.getBean(DatabaseClient.class), accounts, requests * AMOUNT);
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            run("reactive", port, accountNumbers, requests);
+        }
+    }
+
+    private static List<String> seed(DatabaseClient databaseClient, int accounts, long balance) {
+        List<String> accountNumbers = new ArrayList<>(accounts);
+        for (int i = 0; i < accounts; i++) {
+            long userId = userIdOf(i);
+            if (i % ACCOUNTS_PER_USER == 0) {
+                databaseClient.sql("insert into account_user (id, name, created_at, updated_at) values (:id, :name, :now, :now)")
+                        .bind("id", userId)
+                        .bind("name", "load" + userId)
+                        .bind("now", LocalDateTime.now())
+                        .fetch().rowsUpdated().block();
+            }
+            String accountNumber = String.valueOf(FIRST_ACCOUNT_NUMBER + i);
+            databaseClient.sql("insert into account (id, account_user_id, account_number, account_status, balance, version, " +
+                            "registered_at, created_at, updated_at) " +
+                            "values (next value for hibernate_sequence, :userId, :accountNumber, 'IN_USE', :balance, 0, :now, :now, :now)")
+                    .bind("userId", userId)
+                    .bind("accountNumber", accountNumber)
+                    .bind("balance", balance)
+                    .bind("now", LocalDateTime.now())
+                    .fetch().rowsUpdated().block();
+            accountNumbers.add(accountNumber);
+        }
+        return accountNumbers;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.account.loadtest;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * the client side shared by the servlet and the reactive load tests,
+ * both stacks get the same seed layout, requests and report so their numbers can be compared
+ */
+final class UseBalanceLoad {
+    static final int ACCOUNTS_PER_USER = 10;
+    static final long FIRST_USER_ID = 5001;
+    static final long AMOUNT = 10;
+
+    private UseBalanceLoad() {
+    }
+
+    static long userIdOf(int account) {
+        return FIRST_USER_ID + account / ACCOUNTS_PER_USER;
+    }
+
+    static void run(String label, int port, List<String> accountNumbers, int requests) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        URI uri = URI.create("http://localhost:" + port + "/transaction/use");
+        long[] latencies = new long[requests];
+        Map<Integer, AtomicInteger> statuses = new ConcurrentHashMap<>();
+        AtomicInteger errors = new AtomicInteger();
+
+        long start = System.nanoTime();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[requests];
+        for (int i = 0; i < requests; i++) {
+            int account = i % accountNumbers.size();
+            String body = "{\"userId\":" + userIdOf(account) + ",\"accountNumber\":\"" + accountNumbers.get(account) + "\",\"amount\":" + AMOUNT + "}";
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .header("Content-Type", "application/json")
+                    .timeout(Duration.ofSeconds(120))
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+
+            int index = i;
+            long sent = System.nanoTime();
+            futures[i] = httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, throwable) -> {
+                        latencies[index] = System.nanoTime() - sent;
+                        if (throwable != null) {
+                            errors.incrementAndGet();
+                        } else {
+                            statuses.computeIfAbsent(response.statusCode(), code -> new AtomicInteger()).incrementAndGet();
+                        }
+                    });
+        }
+        CompletableFuture.allOf(futures).exceptionally(throwable -> null).join();
+        long elapsed = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        System.out.printf("stack              : %s%n", label);
+        System.out.printf("requests           : %d over %d accounts%n", requests, accountNumbers.size());
+        System.out.printf("elapsed            : %.2f s%n", elapsed / 1e9);
+        System.out.printf("throughput         : %.0f req/s%n", requests / (elapsed / 1e9));
+        System.out.printf("latency p50/p90/p99/max : %.1f / %.1f / %.1f / %.1f ms%n",
+                percentile(latencies, 50), percentile(latencies, 90), percentile(latencies, 99),
+                latencies[latencies.length - 1] / 1e6);
+        System.out.printf("status             : %s, client errors %d%n", new TreeMap<>(statuses), errors.get());
+        System.out.printf("peak platform threads : %d%n", ManagementFactory.getThreadMXBean().getPeakThreadCount());
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        return options;
+    }
+
+    static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.account.loadtest;
+
+import com.example.account.AccountApplication;
+import com.example.account.domain.AccountUser;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.service.AccountService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.account.loadtest.UseBalanceLoad.*;
+
+/**
+ * boots the application in process and fires every use balance request at once,
+ * so the server has all of them in flight together
+ *
+ * options : --threads=platform|virtual --requests=10000 --accounts=1000
+ * the virtual mode needs java 21, run through ./gradlew loadTest -PvirtualThreads
+ * ./gradlew reactiveLoadTest runs the same load against the reactive stack
+ */
+public class UseBalanceLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        boolean virtual = "virtual".equals(options.getOrDefault("threads", "platform"));
+        int requests = Integer.parseInt(options.getOrDefault("requests", "10000"));
+        int accounts = Integer.parseInt(options.getOrDefault("accounts", "1000"));
+
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(AccountApplication.class)
+                .properties(
+                        "server.port=0",
+                        "server.tomcat.max-connections=20000",
+                        "server.tomcat.accept-count=1000",
+                        "spring.redis.port=" + freePort(),
+                        "spring.jpa.properties.hibernate.show_sql=false",
+                        "account.lock.wait-time-ms=10000",
+                        "logging.level.root=WARN");
+        if (virtual) {
+            builder.profiles("virtual");
+        }
+
+        try (ConfigurableApplicationContext context = builder.run()) {
+            List<String> accountNumbers = seed(context, accounts, requests * AMOUNT);
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            run(virtual ? "servlet, virtual threads" : "servlet, platform threads", port, accountNumbers, requests);
+        }
+    }
+
+    private static List<String> seed(ConfigurableApplicationContext context, int accounts, long balance) {
+        AccountUserRepository accountUserRepository = context.getBean(AccountUserRepository.class);
+        AccountService accountService = context.getBean(AccountService.class);
+        List<String> accountNumbers = new ArrayList<>(accounts);
+        for (int i = 0; i < accounts; i++) {
+            long userId = userIdOf(i);
+            if (i % ACCOUNTS_PER_USER == 0) {
+                accountUserRepository.save(AccountUser.builder()
+                        .id(userId)
+                        .name("load" + userId)
+                        .createdAt(LocalDateTime.now())
+                        .updatedAt(LocalDateTime.now())
+                        .build());
+            }
+            accountNumbers.add(accountService.createAccount(userId, balance).getAccountNumber());
+        }
+        return accountNumbers;
+    }
+}
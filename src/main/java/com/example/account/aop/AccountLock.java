@@ -0,0 +1,20 @@
+package com.example.account.aop;
+
+import java.lang.annotation.*;
+
+/**
+ * hold a per-account lock for the whole method call, outside of the transaction
+ * key is a SpEL expression over the method parameters, e.g. "#accountNumber"
+ * a negative wait/lease time falls back to account.lock.* in application.yml
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+public @interface AccountLock {
+    String key();
+
+    long waitTimeMillis() default -1L;
+
+    long leaseTimeMillis() default -1L;
+}
@@ -0,0 +1,122 @@
+package com.example.account.aop;
+
+import com.example.account.exception.AccountException;
+import com.example.account.ledger.LedgerEngine;
+import com.example.account.service.LockService;
+import com.example.account.type.ErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.Order;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Aspect
+@Component
+@Order(1)
+public class LockAopAspect {
+    private final LockService lockService;
+    private final LedgerEngine ledgerEngine;
+    private final long defaultWaitTimeMillis;
+    private final long defaultLeaseTimeMillis;
+    private final long slowWaitMillis;
+
+    private final Timer acquiredTimer;
+    private final Timer timeoutTimer;
+    private final Counter failureCounter;
+
+    private final ExpressionParser parser = new SpelExpressionParser();
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+    private final Map<String, Expression> expressions = new ConcurrentHashMap<>();
+
+    public LockAopAspect(LockService lockService,
+                         LedgerEngine ledgerEngine,
+                         MeterRegistry meterRegistry,
+                         @Value("${account.lock.wait-time-ms:1000}") long defaultWaitTimeMillis,
+                         @Value("${account.lock.lease-time-ms:5000}") long defaultLeaseTimeMillis,
+                         @Value("${account.lock.slow-wait-ms:200}") long slowWaitMillis) {
+        this.lockService = lockService;
+        this.ledgerEngine = ledgerEngine;
+        this.defaultWaitTimeMillis = defaultWaitTimeMillis;
+        this.defaultLeaseTimeMillis = defaultLeaseTimeMillis;
+        this.slowWaitMillis = slowWaitMillis;
+        this.acquiredTimer = Timer.builder("account.lock.wait")
+                .tag("result", "acquired")
+                .register(meterRegistry);
+        this.timeoutTimer = Timer.builder("account.lock.wait")
+                .tag("result", "timeout")
+                .register(meterRegistry);
+        this.failureCounter = Counter.builder("account.lock.failures")
+                .register(meterRegistry);
+    }
+
+    @Around("@annotation(accountLock)")
+    public Object aroundMethod(ProceedingJoinPoint pjp, AccountLock accountLock) throws Throwable {
+        String accountNumber = resolveKey(pjp, accountLock.key());
+        if (ledgerEngine.owns(accountNumber)) {
+            // the ledger shard owning the account already applies its mutations one at a time,
+            // the ledger only runs with the local lock mode, so no other node can take a lock for it
+            return pjp.proceed();
+        }
+        long waitTime = accountLock.waitTimeMillis() >= 0 ? accountLock.waitTimeMillis() : defaultWaitTimeMillis;
+        long leaseTime = accountLock.leaseTimeMillis() >= 0 ? accountLock.leaseTimeMillis() : defaultLeaseTimeMillis;
+
+        lock(accountNumber, waitTime, leaseTime);
+        try {
+            return pjp.proceed();
+        } finally {
+            lockService.unlock(accountNumber);
+        }
+    }
+
+    private void lock(String accountNumber, long waitTime, long leaseTime) {
+        long start = System.nanoTime();
+        boolean locked = false;
+        try {
+            locked = lockService.tryLock(accountNumber, waitTime, leaseTime, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            long waited = System.nanoTime() - start;
+            (locked ? acquiredTimer : timeoutTimer).record(waited, TimeUnit.NANOSECONDS);
+            if (TimeUnit.NANOSECONDS.toMillis(waited) >= slowWaitMillis) {
+                log.warn("Slow account lock. accountNumber : {}, waited : {}ms, acquired : {}",
+                        accountNumber, TimeUnit.NANOSECONDS.toMillis(waited), locked);
+            }
+        }
+
+        if (!locked) {
+            failureCounter.increment();
+            log.error("======Lock acquisition failed=====");
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+    }
+
+    private String resolveKey(ProceedingJoinPoint pjp, String key) {
+        MethodSignature signature = (MethodSignature) pjp.getSignature();
+        MethodBasedEvaluationContext context = new MethodBasedEvaluationContext(
+                pjp.getTarget(), signature.getMethod(), pjp.getArgs(), parameterNameDiscoverer);
+
+        Object value = expressions.computeIfAbsent(key, parser::parseExpression).getValue(context);
+        if (value == null) {
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+        return value.toString();
+    }
+}
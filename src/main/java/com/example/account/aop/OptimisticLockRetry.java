@@ -0,0 +1,14 @@
+package com.example.account.aop;
+
+import java.lang.annotation.*;
+
+/**
+ * re-run the whole method, and so its transaction, when the commit loses an optimistic lock race
+ * attempts and backoff come from account.retry.* in application.yml
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+public @interface OptimisticLockRetry {
+}
@@ -0,0 +1,66 @@
+package com.example.account.aop;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.OptimisticLockException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Aspect
+@Component
+@Order(2)
+public class OptimisticLockRetryAspect {
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final long maxBackoffMillis;
+
+    public OptimisticLockRetryAspect(@Value("${account.retry.max-attempts:3}") int maxAttempts,
+                                     @Value("${account.retry.backoff-ms:10}") long backoffMillis,
+                                     @Value("${account.retry.max-backoff-ms:200}") long maxBackoffMillis) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = backoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    @Around("@annotation(optimisticLockRetry)")
+    public Object aroundMethod(ProceedingJoinPoint pjp, OptimisticLockRetry optimisticLockRetry) throws Throwable {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return pjp.proceed();
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                if (attempt >= maxAttempts) {
+                    log.error("Optimistic lock retries exhausted. method : {}, attempts : {}",
+                            pjp.getSignature().toShortString(), attempt);
+                    throw new AccountException(ErrorCode.CONCURRENT_TRANSACTION_CONFLICT);
+                }
+                backoff(attempt);
+            }
+        }
+    }
+
+    /**
+     * full jitter, sleep a random time up to the exponential bound
+     */
+    private void backoff(int attempt) {
+        long bound = Math.min(maxBackoffMillis, backoffMillis << Math.min(attempt - 1, 16));
+        if (bound <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ErrorCode.CONCURRENT_TRANSACTION_CONFLICT);
+        }
+    }
+}
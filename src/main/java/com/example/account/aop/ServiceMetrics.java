@@ -0,0 +1,23 @@
+package com.example.account.aop;
+
+import com.example.account.type.TransactionType;
+
+import java.lang.annotation.*;
+
+/**
+ * time every public method of the annotated service as account.service,
+ * tagged by class, method, outcome (SUCCESS or the ErrorCode) and transaction type
+ * histogram and percentiles come from management.metrics.distribution.* in application.yml
+ *
+ * the type tag is declared on the method, e.g. @ServiceMetrics(type = USE), methods without one are NONE
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+public @interface ServiceMetrics {
+    /**
+     * at most one, empty tags the method NONE
+     */
+    TransactionType[] type() default {};
+}
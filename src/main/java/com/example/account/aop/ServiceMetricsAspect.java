@@ -0,0 +1,74 @@
+package com.example.account.aop;
+
+import com.example.account.exception.AccountException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * outermost aspect, the recorded time includes waiting for the account lock, optimistic lock retries and the commit
+ */
+@Aspect
+@Component
+@Order(0)
+public class ServiceMetricsAspect {
+    static final String METRIC_NAME = "account.service";
+    static final String SUCCESS = "SUCCESS";
+    static final String NO_TRANSACTION_TYPE = "NONE";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Method, Map<String, Timer>> timers = new ConcurrentHashMap<>();
+
+    public ServiceMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("(@within(com.example.account.aop.ServiceMetrics) || @annotation(com.example.account.aop.ServiceMetrics)) " +
+            "&& execution(public * *(..))")
+    public Object aroundMethod(ProceedingJoinPoint pjp) throws Throwable {
+        long start = System.nanoTime();
+        String outcome = SUCCESS;
+        try {
+            return pjp.proceed();
+        } catch (AccountException e) {
+            outcome = e.getErrorCode().name();
+            throw e;
+        } catch (Throwable e) {
+            outcome = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            Method method = ((MethodSignature) pjp.getSignature()).getMethod();
+            timer(method, pjp.getTarget().getClass(), outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timer(Method method, Class<?> targetClass, String outcome) {
+        return timers.computeIfAbsent(method, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(outcome, key -> Timer.builder(METRIC_NAME)
+                        .tag("class", method.getDeclaringClass().getSimpleName())
+                        .tag("method", method.getName())
+                        .tag("outcome", outcome)
+                        .tag("type", transactionType(AopUtils.getMostSpecificMethod(method, targetClass)))
+                        .register(meterRegistry));
+    }
+
+    static String transactionType(Method method) {
+        ServiceMetrics serviceMetrics = AnnotationUtils.findAnnotation(method, ServiceMetrics.class);
+        if (serviceMetrics == null || serviceMetrics.type().length == 0) {
+            return NO_TRANSACTION_TYPE;
+        }
+        return serviceMetrics.type()[0].name();
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.account.archive;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * table bytes are the transaction table with its indexes as reported by h2, -1 on a database without disk_space_used
+ */
+@Getter
+@AllArgsConstructor
+public class ArchiveReport {
+    private final LocalDateTime horizon;
+    private final long rows;
+    private final int chunks;
+    private final long elapsedMillis;
+    private final double rowsPerSecond;
+    private final long tableBytesBefore;
+    private final long tableBytesAfter;
+}
@@ -0,0 +1,186 @@
+package com.example.account.archive;
+
+import com.example.account.repository.ArchivedTransactionRepository;
+import com.example.account.repository.TransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * moves transactions older than horizon-days from the transaction table to transaction_archive,
+ * oldest first, chunk-size rows per database transaction with a pause in between, so only a chunk is ever locked
+ * cancels are refused after a year, the horizon has to be longer than that so the write path never needs the archive
+ * runs on one node only, enable it on a single instance
+ * a run can take hours, the scheduler thread only hands it to the archiver's own thread
+ */
+@Slf4j
+@Component
+public class TransactionArchiver {
+    private static final int CANCEL_WINDOW_DAYS = 366;
+
+    private final TransactionRepository transactionRepository;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int horizonDays;
+    private final int chunkSize;
+    private final long pauseMillis;
+    private final int maxChunksPerRun;
+
+    private final Counter archivedRows;
+    private final Timer chunkTimer;
+    private final AtomicLong tableBytes = new AtomicLong(-1);
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "transaction-archiver");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TransactionArchiver(TransactionRepository transactionRepository,
+                               ArchivedTransactionRepository archivedTransactionRepository,
+                               TransactionTemplate transactionTemplate,
+                               JdbcTemplate jdbcTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${account.archive.enabled:false}") boolean enabled,
+                               @Value("${account.archive.horizon-days:400}") int horizonDays,
+                               @Value("${account.archive.chunk-size:1000}") int chunkSize,
+                               @Value("${account.archive.pause-ms:50}") long pauseMillis,
+                               @Value("${account.archive.max-chunks-per-run:10000}") int maxChunksPerRun) {
+        if (horizonDays <= CANCEL_WINDOW_DAYS) {
+            throw new IllegalArgumentException("account.archive.horizon-days must be longer than the one year cancel window");
+        }
+        this.transactionRepository = transactionRepository;
+        this.archivedTransactionRepository = archivedTransactionRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.horizonDays = horizonDays;
+        this.chunkSize = chunkSize;
+        this.pauseMillis = pauseMillis;
+        this.maxChunksPerRun = maxChunksPerRun;
+
+        this.archivedRows = Counter.builder("account.archive.rows")
+                .register(meterRegistry);
+        this.chunkTimer = Timer.builder("account.archive.chunk")
+                .register(meterRegistry);
+        Gauge.builder("account.archive.table.bytes", tableBytes, AtomicLong::get)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${account.archive.cron:0 30 3 * * *}")
+    public void scheduledArchive() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                archive();
+            } catch (RuntimeException e) {
+                log.error("Transaction archive run failed", e);
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    /**
+     * interrupts a running archive between chunks, the chunk in flight still commits or rolls back on its own
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public synchronized ArchiveReport archive() {
+        LocalDateTime horizon = LocalDateTime.now().minusDays(horizonDays);
+        LocalDateTime archivedAt = LocalDateTime.now();
+        long bytesBefore = measureTableBytes();
+        long started = System.nanoTime();
+
+        long rows = 0;
+        int chunks = 0;
+        while (chunks < maxChunksPerRun && !Thread.currentThread().isInterrupted()) {
+            int moved = chunkTimer.record(() -> moveChunk(horizon, archivedAt));
+            if (moved == 0) {
+                break;
+            }
+            rows += moved;
+            chunks++;
+            archivedRows.increment(moved);
+            if (moved < chunkSize || !pause()) {
+                break;
+            }
+        }
+
+        long elapsedMillis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        long bytesAfter = measureTableBytes();
+        ArchiveReport report = new ArchiveReport(horizon, rows, chunks, elapsedMillis,
+                rows * 1000.0 / elapsedMillis, bytesBefore, bytesAfter);
+        if (rows > 0) {
+            log.info("Archived {} transactions before {} in {} chunks, {} ms, {} rows/s, transaction table and indexes {} -> {} bytes",
+                    rows, horizon, chunks, elapsedMillis, String.format("%.0f", report.getRowsPerSecond()),
+                    bytesBefore, bytesAfter);
+        }
+        return report;
+    }
+
+    private int moveChunk(LocalDateTime horizon, LocalDateTime archivedAt) {
+        Integer moved = transactionTemplate.execute(status -> {
+            List<Long> ids = transactionRepository.findIdsTransactedBefore(horizon, PageRequest.of(0, chunkSize));
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            archivedTransactionRepository.copyFromTransactions(ids, archivedAt);
+            return transactionRepository.deleteByIdIn(ids);
+        });
+        return moved == null ? 0 : moved;
+    }
+
+    private boolean pause() {
+        if (pauseMillis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * h2 counts the rows and every index of the table, other databases report -1
+     */
+    private long measureTableBytes() {
+        long bytes;
+        try {
+            Long used = jdbcTemplate.queryForObject("select disk_space_used('TRANSACTION')", Long.class);
+            bytes = used == null ? -1 : used;
+        } catch (DataAccessException e) {
+            bytes = -1;
+        }
+        tableBytes.set(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.account.cli;
+
+import com.example.account.dto.AccountImport;
+import com.example.account.service.AccountImportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * imports the csv given by account.import.file, prints the report and exits
+ * ./gradlew importAccounts -PimportFile=users.csv
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "account.import.file")
+public class AccountImportRunner implements ApplicationRunner {
+    private final AccountImportService accountImportService;
+    private final ConfigurableApplicationContext context;
+
+    @Value("${account.import.file}")
+    private String file;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        Path path = Paths.get(file);
+        AccountImport.Response response;
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            response = accountImportService.importAccounts(reader);
+        }
+
+        System.out.printf("file               : %s%n", path.toAbsolutePath());
+        System.out.printf("rows               : %d%n", response.getRows());
+        System.out.printf("users created      : %d%n", response.getUsersCreated());
+        System.out.printf("accounts created   : %d%n", response.getAccountsCreated());
+        System.out.printf("rejected           : %d%n", response.getRejected());
+        System.out.printf("elapsed            : %.2f s%n", response.getElapsedMillis() / 1e3);
+        System.out.printf("throughput         : %.0f rows/s%n", response.getRowsPerSecond());
+        for (AccountImport.Error error : response.getErrors()) {
+            System.out.printf("line %d : %s%n", error.getLineNumber(), error.getErrorCode());
+        }
+
+        // scheduler and redis threads would keep a cli run alive
+        System.exit(SpringApplication.exit(context));
+    }
+}
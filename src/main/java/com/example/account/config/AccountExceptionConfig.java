@@ -0,0 +1,18 @@
+package com.example.account.config;
+
+import com.example.account.exception.AccountException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PostConstruct;
+
+@Configuration
+public class AccountExceptionConfig {
+    @Value("${account.exception.stack-trace:false}")
+    private boolean stackTraceEnabled;
+
+    @PostConstruct
+    public void configureStackTrace() {
+        AccountException.setStackTraceEnabled(stackTraceEnabled);
+    }
+}
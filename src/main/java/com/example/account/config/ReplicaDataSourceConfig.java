@@ -0,0 +1,65 @@
+package com.example.account.config;
+
+import com.example.account.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * spring.datasource becomes the primary pool and account.datasource.replica a read-only pool next to it,
+ * jpa, flyway and jdbc templates get the routing data source, which sends read-only transactions to the replica
+ *
+ * migrate runs the flyway scripts against the replica on startup, only for a local replica
+ * that is not fed by replication, keep an in-memory one alive with DB_CLOSE_DELAY=-1
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "account.datasource.replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource(@Value("${account.datasource.replica.url}") String url,
+                                              @Value("${account.datasource.replica.username:sa}") String username,
+                                              @Value("${account.datasource.replica.password:}") String password,
+                                              @Value("${account.datasource.replica.maximum-pool-size:10}") int maximumPoolSize,
+                                              @Value("${account.datasource.replica.migrate:false}") boolean migrate) {
+        if (migrate) {
+            log.info("Migrating the local replica schema. url : {}", url);
+            Flyway.configure().dataSource(url, username, password).load().migrate();
+        }
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource));
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.account.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * the scheduler pool is sized by spring.task.scheduling.pool.size, a slow job must not stall the journal and ledger drains
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+}
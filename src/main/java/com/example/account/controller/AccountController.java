@@ -1,22 +1,26 @@
 package com.example.account.controller;
 
 import com.example.account.domain.Account;
+import com.example.account.dto.AccountImport;
 import com.example.account.dto.AccountInfo;
 import com.example.account.dto.CreateAccount;
 import com.example.account.dto.DeleteAccount;
+import com.example.account.service.AccountImportService;
 import com.example.account.service.AccountService;
 import com.example.account.service.RedisTestService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.Reader;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequiredArgsConstructor
 public class AccountController {
     private final AccountService accountService;
+    private final AccountImportService accountImportService;
     private final RedisTestService redisTestService;
 
     @GetMapping("/get-lock")
@@ -30,6 +34,14 @@ public class AccountController {
     }
 
 
+    /**
+     * text/csv body of user_id,name,initial_balance lines, read as it arrives
+     */
+    @PostMapping(value = "/account/import", consumes = "text/csv")
+    public AccountImport.Response importAccounts(Reader reader) throws IOException {
+        return accountImportService.importAccounts(reader);
+    }
+
     @DeleteMapping("/account")
     public DeleteAccount.Response createAccount(@RequestBody @Valid DeleteAccount.Request request) {
         return DeleteAccount.Response.from(accountService.deleteAccount(request.getUserId(), request.getAccountNumber()));
@@ -45,13 +57,7 @@ public class AccountController {
     public List<AccountInfo> getAccountsByUserId(
             @RequestParam("user_id") Long userId
     ) {
-        return accountService.getAccoutsByUserId(userId)
-                .stream().map(accountDto ->
-                        AccountInfo.builder().
-                                accountNumber(accountDto.getAccountNumber())
-                                .balance(accountDto.getBalance())
-                                .build())
-                .collect(Collectors.toList());
+        return accountService.getAccoutsByUserId(userId);
 
     }
 
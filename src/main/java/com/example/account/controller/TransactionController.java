@@ -3,48 +3,131 @@ package com.example.account.controller;
 import com.example.account.dto.CancelBalance;
 import com.example.account.dto.QueryTransactionResponse;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionHistory;
 import com.example.account.dto.UseBalance;
+import com.example.account.dto.UseBalanceBatch;
 import com.example.account.exception.AccountException;
+import com.example.account.service.FailedTransactionRecorder;
+import com.example.account.service.IdempotencyService;
+import com.example.account.service.TransactionBatchService;
+import com.example.account.service.TransactionHistoryService;
 import com.example.account.service.TransactionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
 
 @RestController
 @RequiredArgsConstructor
 @Slf4j
 public class TransactionController {
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     private final TransactionService transactionService;
+    private final TransactionBatchService transactionBatchService;
+    private final FailedTransactionRecorder failedTransactionRecorder;
+    private final TransactionHistoryService transactionHistoryService;
+    private final IdempotencyService idempotencyService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/transaction/{transactionId}")
     public QueryTransactionResponse queryTransaction(@PathVariable String transactionId) {
         return QueryTransactionResponse.from(transactionService.queryTransaction(transactionId));
     }
+    /**
+     * with an Idempotency-Key header a retried request replays the first response instead of debiting again
+     * keys are scoped to the user and account, the same key with a different body is rejected
+     */
     @PostMapping("/transaction/use")
-    public UseBalance.Response useBalance(@Valid @RequestBody UseBalance.Request request) {
+    public UseBalance.Response useBalance(@RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                          @Valid @RequestBody UseBalance.Request request) {
+        if (idempotencyKey == null) {
+            return useBalance(request);
+        }
+        return idempotencyService.execute(USE + ":" + request.getUserId() + ":" + request.getAccountNumber() + ":" + idempotencyKey,
+                request, UseBalance.Response.class, () -> useBalance(request));
+    }
 
+    private UseBalance.Response useBalance(UseBalance.Request request) {
         try {
             return UseBalance.Response.from(transactionService.useBalance(request.getUserId(), request.getAccountNumber(), request.getAmount()));
 
         } catch (AccountException e) {
             log.error("Failed to use balance.");
-            transactionService.saveFailedUseTransaction(request.getAccountNumber(), request.getAmount());
+            failedTransactionRecorder.record(USE, request.getAccountNumber(), request.getAmount());
             throw e;
         }
     }
 
+    @PostMapping("/transaction/use/batch")
+    public UseBalanceBatch.Response useBalanceBatch(@Valid @RequestBody UseBalanceBatch.Request request) {
+        return UseBalanceBatch.Response.builder()
+                .items(transactionBatchService.useBalance(request.getItems()))
+                .build();
+    }
+
     @PostMapping("/transaction/cancel")
-    public CancelBalance.Response cancelBalance(@Valid @RequestBody CancelBalance.Request request) {
+    public CancelBalance.Response cancelBalance(@RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                @Valid @RequestBody CancelBalance.Request request) {
+        if (idempotencyKey == null) {
+            return cancelBalance(request);
+        }
+        return idempotencyService.execute(CANCEL + ":" + request.getAccountNumber() + ":" + idempotencyKey,
+                request, CancelBalance.Response.class, () -> cancelBalance(request));
+    }
 
+    private CancelBalance.Response cancelBalance(CancelBalance.Request request) {
         try {
             return CancelBalance.Response.from(transactionService.cancelBalance(request.getTransactionId(), request.getAccountNumber(), request.getAmount()));
 
         } catch (AccountException e) {
             log.error("Failed to use balance.");
-            transactionService.saveFailedCancelTransaction(request.getAccountNumber(), request.getAmount());
+            failedTransactionRecorder.record(CANCEL, request.getAccountNumber(), request.getAmount());
             throw e;
         }
     }
+
+    @GetMapping("/account/{accountNumber}/transactions")
+    public TransactionHistory.Response getTransactions(@PathVariable String accountNumber,
+                                                       @RequestParam(required = false) String cursor,
+                                                       @RequestParam(defaultValue = "20") int size) {
+        return TransactionHistory.Response.from(transactionHistoryService.getTransactions(accountNumber, cursor, size));
+    }
+
+    /**
+     * newline delimited json, one transaction per line, oldest first, the last year by default
+     */
+    @GetMapping("/account/{accountNumber}/transactions/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @PathVariable String accountNumber,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        Long accountId = transactionHistoryService.getAccountId(accountNumber);
+        LocalDateTime end = to == null ? LocalDateTime.now() : to;
+        LocalDateTime start = from == null ? end.minusYears(1L) : from;
+
+        StreamingResponseBody body = outputStream -> transactionHistoryService.exportTransactions(accountId, start, end, transactionDto -> {
+            try {
+                outputStream.write(objectMapper.writeValueAsBytes(QueryTransactionResponse.from(transactionDto)));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
 }
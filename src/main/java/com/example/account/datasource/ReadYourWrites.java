@@ -0,0 +1,53 @@
+package com.example.account.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * a user who changed an account reads from the primary for read-your-writes-ms afterwards,
+ * so a lagging replica never shows them a balance older than their own debit
+ * transactions are immutable, a lookup that misses on the replica is simply repeated on the primary
+ * 0 turns both off, every read-only transaction then goes to the replica
+ */
+@Component
+public class ReadYourWrites {
+    private static final long MAXIMUM_USERS = 100_000;
+
+    private final Cache<Long, Boolean> writtenUsers;
+
+    public ReadYourWrites(@Value("${account.datasource.replica.read-your-writes-ms:0}") long windowMillis) {
+        this.writtenUsers = windowMillis > 0
+                ? Caffeine.newBuilder()
+                .expireAfterWrite(windowMillis, TimeUnit.MILLISECONDS)
+                .maximumSize(MAXIMUM_USERS)
+                .build()
+                : null;
+    }
+
+    public void markWritten(Long userId) {
+        if (writtenUsers != null) {
+            writtenUsers.put(userId, Boolean.TRUE);
+        }
+    }
+
+    public <T> T read(Long userId, Supplier<T> read) {
+        if (writtenUsers != null && writtenUsers.getIfPresent(userId) != null) {
+            return ReplicaRoutingDataSource.onPrimary(read);
+        }
+        return read.get();
+    }
+
+    public <T> Optional<T> readOrRetryOnPrimary(Supplier<Optional<T>> read) {
+        Optional<T> result = read.get();
+        if (result.isPresent() || writtenUsers == null) {
+            return result;
+        }
+        return ReplicaRoutingDataSource.onPrimary(read);
+    }
+}
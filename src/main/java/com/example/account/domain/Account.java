@@ -23,7 +23,7 @@ public class Account {
     @GeneratedValue
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private AccountUser accountUser;
     private String accountNumber;
 
@@ -31,6 +31,12 @@ public class Account {
     private AccountStatus accountStatus;
     private Long balance;
 
+    @Version
+    private Long version;
+
+    // balance owned by the ledger engine, see LedgerEngine
+    private boolean hot;
+
     private LocalDateTime registeredAt;
     private LocalDateTime unRegisteredAt;
 
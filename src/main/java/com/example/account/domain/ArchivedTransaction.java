@@ -0,0 +1,58 @@
+package com.example.account.domain;
+
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * a transaction past the cancel window, rows are copied here by the archiver and never change afterwards
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Immutable
+@Table(name = "transaction_archive")
+public class ArchivedTransaction {
+    @Id
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    private TransactionType transactionType;
+    @Enumerated(EnumType.STRING)
+    private TransactionResultType transactionResultType;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Account account;
+
+    private Long amount;
+
+    private Long balanceSnapshot;
+
+    private String transcationId;
+
+    private LocalDateTime transactedAt;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime archivedAt;
+
+    public Transaction toTransaction() {
+        return Transaction.builder()
+                .id(id)
+                .transactionType(transactionType)
+                .transactionResultType(transactionResultType)
+                .account(account)
+                .amount(amount)
+                .balanceSnapshot(balanceSnapshot)
+                .transcationId(transcationId)
+                .transactedAt(transactedAt)
+                .createdAt(createdAt)
+                .updatedAt(updatedAt)
+                .build();
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.account.dto;
+
+import com.example.account.type.ErrorCode;
+import lombok.*;
+
+import java.util.List;
+
+public class AccountImport {
+
+    /**
+     * one csv line, user_id,name,initial_balance, the name may itself contain commas
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Row {
+        private final int lineNumber;
+        private final Long userId;
+        private final String name;
+        private final Long initialBalance;
+
+        public static Row parse(int lineNumber, String line) {
+            int first = line.indexOf(',');
+            int last = line.lastIndexOf(',');
+            if (first < 0 || first == last) {
+                throw new IllegalArgumentException("expected user_id,name,initial_balance");
+            }
+            long userId = Long.parseLong(line.substring(0, first).trim());
+            long initialBalance = Long.parseLong(line.substring(last + 1).trim());
+            if (userId < 1 || initialBalance < 0) {
+                throw new IllegalArgumentException("user_id must be positive and initial_balance not negative");
+            }
+            return new Row(lineNumber, userId, line.substring(first + 1, last).trim(), initialBalance);
+        }
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Error {
+        private int lineNumber;
+        private ErrorCode errorCode;
+        private String errorMessage;
+
+        public static Error of(int lineNumber, ErrorCode errorCode) {
+            return new Error(lineNumber, errorCode, errorCode.getDescription());
+        }
+    }
+
+    /**
+     * errors only lists the first rejected lines, rejected counts all of them
+     */
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response {
+        private long rows;
+        private long usersCreated;
+        private long accountsCreated;
+        private long rejected;
+        private long elapsedMillis;
+        private double rowsPerSecond;
+        private List<Error> errors;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+/**
+ * account listing row with the version it was read at, kept by the account summary cache
+ */
+@Getter
+@AllArgsConstructor
+@Builder
+public class AccountSummary {
+    private String accountNumber;
+    private Long balance;
+    private Long version;
+
+    public AccountInfo toAccountInfo() {
+        return AccountInfo.builder()
+                .accountNumber(accountNumber)
+                .balance(balance)
+                .build();
+    }
+}
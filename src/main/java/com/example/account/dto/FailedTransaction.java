@@ -0,0 +1,16 @@
+package com.example.account.dto;
+
+import com.example.account.type.TransactionType;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@AllArgsConstructor
+@Builder
+public class FailedTransaction {
+    private final TransactionType transactionType;
+    private final String accountNumber;
+    private final Long amount;
+    private final LocalDateTime failedAt;
+}
@@ -0,0 +1,38 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class TransactionHistory {
+
+    /**
+     * one page of transactions, newest first, nextCursor is null on the last page
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Page {
+        private List<TransactionDto> transactions;
+        private String nextCursor;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response {
+        private List<QueryTransactionResponse> transactions;
+        private String nextCursor;
+
+        public static Response from(Page page) {
+            return Response.builder()
+                    .transactions(page.getTransactions().stream()
+                            .map(QueryTransactionResponse::from)
+                            .collect(Collectors.toList()))
+                    .nextCursor(page.getNextCursor())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.account.dto;
+
+import com.example.account.type.ErrorCode;
+import lombok.*;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+public class UseBalanceBatch {
+
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Request {
+        @Valid
+        @NotEmpty
+        @Size(max = 100)
+        private List<UseBalance.Request> items;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response {
+        private List<Item> items;
+    }
+
+    /**
+     * per request item, either the use balance response or the error code
+     */
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Item {
+        private UseBalance.Response result;
+        private ErrorCode errorCode;
+        private String errorMessage;
+
+        public static Item success(TransactionDto transactionDto) {
+            return Item.builder()
+                    .result(UseBalance.Response.from(transactionDto))
+                    .build();
+        }
+
+        public static Item failure(ErrorCode errorCode) {
+            return Item.builder()
+                    .errorCode(errorCode)
+                    .errorMessage(errorCode.getDescription())
+                    .build();
+        }
+    }
+}
@@ -4,12 +4,18 @@ import com.example.account.type.ErrorCode;
 import lombok.*;
 
 
+/**
+ * business rule failures are expected and handled by error code, so by default no stack trace is captured
+ * account.exception.stack-trace=true restores traces for debugging
+ */
 @Getter
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
 public class AccountException extends RuntimeException {
+    private static volatile boolean stackTraceEnabled;
+
     private ErrorCode errorCode;
     private String errorMessage;
 
@@ -17,4 +23,13 @@ public class AccountException extends RuntimeException {
         this.errorCode = errorCode;
         this.errorMessage = errorCode.getDescription();
     }
+
+    public static void setStackTraceEnabled(boolean enabled) {
+        stackTraceEnabled = enabled;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return stackTraceEnabled ? super.fillInStackTrace() : this;
+    }
 }
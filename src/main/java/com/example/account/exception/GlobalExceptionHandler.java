@@ -0,0 +1,67 @@
+package com.example.account.exception;
+
+import com.example.account.dto.ErrorResponse;
+import com.example.account.type.ErrorCode;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * error bodies only depend on the error code, so they are serialized once per code
+ */
+@Slf4j
+@RestControllerAdvice
+public class GlobalExceptionHandler {
+    private final ObjectMapper objectMapper;
+    private final Map<ErrorCode, byte[]> cachedBodies = new EnumMap<>(ErrorCode.class);
+
+    public GlobalExceptionHandler(ObjectMapper objectMapper) throws JsonProcessingException {
+        this.objectMapper = objectMapper;
+        for (ErrorCode errorCode : ErrorCode.values()) {
+            cachedBodies.put(errorCode, serialize(errorCode, errorCode.getDescription()));
+        }
+    }
+
+    @ExceptionHandler(AccountException.class)
+    public ResponseEntity<byte[]> handleAccountException(AccountException e) throws JsonProcessingException {
+        ErrorCode errorCode = e.getErrorCode() == null ? ErrorCode.INVALID_REQUEST : e.getErrorCode();
+        log.debug("{} is occurred.", errorCode, e);
+
+        byte[] body = e.getErrorMessage() == null || Objects.equals(e.getErrorMessage(), errorCode.getDescription())
+                ? cachedBodies.get(errorCode)
+                : serialize(errorCode, e.getErrorMessage());
+        return ResponseEntity.status(statusOf(errorCode))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    private static HttpStatus statusOf(ErrorCode errorCode) {
+        switch (errorCode) {
+            case ACCOUNT_TRANSACTION_LOCK:
+            case CONCURRENT_TRANSACTION_CONFLICT:
+            case IDEMPOTENT_REQUEST_IN_PROGRESS:
+            case IDEMPOTENT_REQUEST_OUTCOME_UNKNOWN:
+            case LEDGER_OWNED_ACCOUNT:
+                return HttpStatus.CONFLICT;
+            case IDEMPOTENCY_KEY_REUSED:
+                return HttpStatus.UNPROCESSABLE_ENTITY;
+            case LEDGER_UNAVAILABLE:
+                return HttpStatus.SERVICE_UNAVAILABLE;
+            default:
+                return HttpStatus.BAD_REQUEST;
+        }
+    }
+
+    private byte[] serialize(ErrorCode errorCode, String errorMessage) throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(new ErrorResponse(errorCode, errorMessage));
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.account.journal;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class JournalBatch {
+    private final List<JournalRecord> records;
+    private final int nextOffset;
+
+    public boolean isEmpty() {
+        return records.isEmpty();
+    }
+}
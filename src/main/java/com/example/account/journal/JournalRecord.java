@@ -0,0 +1,115 @@
+package com.example.account.journal;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import lombok.*;
+
+import java.io.*;
+import java.time.LocalDateTime;
+
+/**
+ * one journaled transaction, or a void marker for a transaction whose database commit rolled back
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Builder(access = AccessLevel.PRIVATE)
+public class JournalRecord {
+    private static final byte TRANSACTION = 0;
+    private static final byte VOID = 1;
+
+    private final boolean voided;
+    private final String transactionId;
+    private final Long accountId;
+    private final String accountNumber;
+    private final TransactionType transactionType;
+    private final TransactionResultType transactionResultType;
+    private final Long amount;
+    private final Long balanceSnapshot;
+    private final LocalDateTime transactedAt;
+
+    public static JournalRecord from(Transaction transaction) {
+        return JournalRecord.builder()
+                .transactionId(transaction.getTranscationId())
+                .accountId(transaction.getAccount().getId())
+                .accountNumber(transaction.getAccount().getAccountNumber())
+                .transactionType(transaction.getTransactionType())
+                .transactionResultType(transaction.getTransactionResultType())
+                .amount(transaction.getAmount())
+                .balanceSnapshot(transaction.getBalanceSnapshot())
+                .transactedAt(transaction.getTransactedAt())
+                .build();
+    }
+
+    public static JournalRecord voidOf(String transactionId) {
+        return JournalRecord.builder()
+                .voided(true)
+                .transactionId(transactionId)
+                .build();
+    }
+
+    public Transaction toTransaction(Account account) {
+        return Transaction.builder()
+                .transactionType(transactionType)
+                .transactionResultType(transactionResultType)
+                .account(account)
+                .amount(amount)
+                .balanceSnapshot(balanceSnapshot)
+                .transcationId(transactionId)
+                .transactedAt(transactedAt)
+                .build();
+    }
+
+    /**
+     * the account is a detached stub carrying only what lookups of unprojected records need
+     */
+    public Transaction toTransaction() {
+        return toTransaction(Account.builder()
+                .id(accountId)
+                .accountNumber(accountNumber)
+                .build());
+    }
+
+    byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(voided ? VOID : TRANSACTION);
+            out.writeUTF(transactionId);
+            if (!voided) {
+                out.writeLong(accountId);
+                out.writeUTF(accountNumber);
+                out.writeUTF(transactionType.name());
+                out.writeUTF(transactionResultType.name());
+                out.writeLong(amount);
+                out.writeLong(balanceSnapshot);
+                out.writeUTF(transactedAt.toString());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static JournalRecord decode(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            boolean voided = in.readByte() == VOID;
+            String transactionId = in.readUTF();
+            if (voided) {
+                return voidOf(transactionId);
+            }
+            return JournalRecord.builder()
+                    .transactionId(transactionId)
+                    .accountId(in.readLong())
+                    .accountNumber(in.readUTF())
+                    .transactionType(TransactionType.valueOf(in.readUTF()))
+                    .transactionResultType(TransactionResultType.valueOf(in.readUTF()))
+                    .amount(in.readLong())
+                    .balanceSnapshot(in.readLong())
+                    .transactedAt(LocalDateTime.parse(in.readUTF()))
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
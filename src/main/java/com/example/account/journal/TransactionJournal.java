@@ -0,0 +1,409 @@
+package com.example.account.journal;
+
+import com.example.account.domain.Transaction;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.*;
+import java.util.zip.CRC32;
+
+/**
+ * append-only memory-mapped journal of transaction records
+ *
+ * layout : [long checkpoint] then records of [int length][int crc32][payload], a zero length ends the log
+ * appenders copy their record into the mapping and wait for the sync thread,
+ * which forces the mapping once for every appender queued since the last force (group commit)
+ * the projector reads from the checkpoint, and the log is rewound once everything is projected
+ *
+ * a record appended inside a database transaction is synced before that transaction commits,
+ * it stays invisible to findPending and the projector until the commit and is voided if the transaction rolls back
+ */
+@Slf4j
+@Component
+public class TransactionJournal {
+    private static final int HEADER_SIZE = Long.BYTES;
+    private static final int RECORD_HEADER_SIZE = Integer.BYTES * 2;
+
+    private final String name;
+    private final boolean enabled;
+    private final Path path;
+    private final int capacity;
+    private final long syncTimeoutMillis;
+
+    private final DistributionSummary groupSize;
+    private final Timer syncTimer;
+
+    private final Map<String, JournalRecord> pending = new ConcurrentHashMap<>();
+    private final BlockingQueue<CompletableFuture<Void>> syncWaiters = new LinkedBlockingQueue<>();
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private volatile int writePosition;
+    private volatile int checkpoint;
+    // room kept for the void markers of appends whose database transaction has not completed yet
+    private int reserved;
+    // positions of records whose database transaction has not completed, the projector stops at the first one
+    private final NavigableSet<Integer> undecided = new TreeSet<>();
+    // rolled back records not yet passed by the projector, their void marker follows them in the log
+    private final Set<String> rolledBack = ConcurrentHashMap.newKeySet();
+    private volatile boolean running;
+    private Thread syncThread;
+
+    @Autowired
+    public TransactionJournal(@Value("${account.journal.enabled:false}") boolean enabled,
+                              @Value("${account.journal.path:./journal/transaction.journal}") String path,
+                              @Value("${account.journal.size-mb:64}") int sizeMb,
+                              @Value("${account.journal.sync-timeout-ms:1000}") long syncTimeoutMillis,
+                              MeterRegistry meterRegistry) {
+        this("transaction", enabled, Paths.get(path), sizeMb, syncTimeoutMillis, meterRegistry);
+    }
+
+    /**
+     * the name tags the metrics and the sync thread when more than one journal is open
+     */
+    public TransactionJournal(String name, boolean enabled, Path path, int sizeMb, long syncTimeoutMillis, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.enabled = enabled;
+        this.path = path;
+        this.capacity = sizeMb * 1024 * 1024;
+        this.syncTimeoutMillis = syncTimeoutMillis;
+        this.groupSize = DistributionSummary.builder("account.journal.group.size")
+                .tag("journal", name)
+                .register(meterRegistry);
+        this.syncTimer = Timer.builder("account.journal.sync")
+                .tag("journal", name)
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+
+        recover();
+
+        running = true;
+        syncThread = new Thread(this::syncLoop, name + "-journal-sync");
+        syncThread.setDaemon(true);
+        syncThread.start();
+    }
+
+    /**
+     * rebuild the index of unprojected records, a torn or corrupt record ends the log
+     */
+    private void recover() {
+        long storedCheckpoint = buffer.getLong(0);
+        int position = storedCheckpoint < HEADER_SIZE || storedCheckpoint >= capacity ? HEADER_SIZE : (int) storedCheckpoint;
+        checkpoint = position;
+
+        byte[] payload;
+        while ((payload = readPayload(position)) != null) {
+            index(JournalRecord.decode(payload));
+            position += RECORD_HEADER_SIZE + payload.length;
+        }
+        writePosition = position;
+        if (position + Integer.BYTES <= capacity) {
+            buffer.putInt(position, 0);
+        }
+        buffer.putLong(0, checkpoint);
+        buffer.force();
+        log.info("Journal opened. journal : {}, path : {}, unprojected records : {}", name, path, pending.size());
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (!enabled || channel == null) {
+            return;
+        }
+        running = false;
+        try {
+            syncThread.join(syncTimeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        buffer.force();
+        channel.close();
+    }
+
+    /**
+     * returns false when the journal is full, the caller then writes to the database directly
+     * the record is durable when this returns, inside a database transaction that is before the commit
+     * and the completion of the transaction only flips in-memory state, so a committed request never fails afterwards
+     * a crash after the sync but before the commit leaves a record of a debit that did not commit, replay projects it
+     */
+    public boolean append(Transaction transaction) {
+        JournalRecord record = JournalRecord.from(transaction);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            CompletableFuture<Void> synced = write(Collections.singletonList(record), true, 0);
+            if (synced == null) {
+                log.warn("Transaction journal is full, writing to the database. transactionId : {}", record.getTransactionId());
+                return false;
+            }
+            awaitSync(synced);
+            return true;
+        }
+
+        int voidSize = RECORD_HEADER_SIZE + JournalRecord.voidOf(record.getTransactionId()).encode().length;
+        int position;
+        CompletableFuture<Void> synced;
+        synchronized (this) {
+            position = writePosition;
+            synced = write(Collections.singletonList(record), false, voidSize);
+            if (synced == null) {
+                log.warn("Transaction journal is full, writing to the database. transactionId : {}", record.getTransactionId());
+                return false;
+            }
+            reserved += voidSize;
+            undecided.add(position);
+        }
+        // registered before the wait, a failed sync rolls the transaction back and voids the record
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                decide(record, position, voidSize, status == STATUS_COMMITTED);
+            }
+        });
+        awaitSync(synced);
+        return true;
+    }
+
+    /**
+     * all records or none, acknowledged by the one sync that covers the last of them
+     * meant for writers outside a database transaction, the records are written right away
+     */
+    public boolean appendAll(List<Transaction> transactions) {
+        CompletableFuture<Void> synced = writeAll(transactions);
+        if (synced == null) {
+            return false;
+        }
+        awaitSync(synced);
+        return true;
+    }
+
+    /**
+     * appendAll without the wait, null when the journal is full and nothing was written
+     * once this returns the records are in the log and will be projected whatever the sync does
+     */
+    public CompletableFuture<Void> writeAll(List<Transaction> transactions) {
+        List<JournalRecord> records = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            records.add(JournalRecord.from(transaction));
+        }
+        CompletableFuture<Void> synced = write(records, true, 0);
+        if (synced == null) {
+            log.warn("Journal is full. journal : {}, records : {}", name, records.size());
+        }
+        return synced;
+    }
+
+    public Optional<Transaction> findPending(String transactionId) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(pending.get(transactionId)).map(JournalRecord::toTransaction);
+    }
+
+    /**
+     * stops at the first record whose database transaction is still open, rolled back records are skipped
+     */
+    public JournalBatch read(int maxRecords) {
+        int position;
+        int end;
+        synchronized (this) {
+            position = checkpoint;
+            end = undecided.isEmpty() ? writePosition : undecided.first();
+        }
+        List<JournalRecord> records = new ArrayList<>();
+        while (position < end && records.size() < maxRecords) {
+            byte[] payload = readPayload(position);
+            if (payload == null) {
+                break;
+            }
+            JournalRecord record = JournalRecord.decode(payload);
+            if (record.isVoided() || !rolledBack.contains(record.getTransactionId())) {
+                records.add(record);
+            }
+            position += RECORD_HEADER_SIZE + payload.length;
+        }
+        return new JournalBatch(records, position);
+    }
+
+    /**
+     * called by the projector once the batch is committed to the database
+     */
+    public synchronized void checkpoint(JournalBatch batch) {
+        for (JournalRecord record : batch.getRecords()) {
+            pending.remove(record.getTransactionId());
+            if (record.isVoided()) {
+                rolledBack.remove(record.getTransactionId());
+            }
+        }
+        if (batch.getNextOffset() == writePosition) {
+            writePosition = HEADER_SIZE;
+            buffer.putInt(HEADER_SIZE, 0);
+            checkpoint = HEADER_SIZE;
+        } else {
+            checkpoint = batch.getNextOffset();
+        }
+        buffer.putLong(0, checkpoint);
+    }
+
+    /**
+     * runs after the database transaction completed, nothing here waits for the disk or throws at the caller
+     * the void marker goes out with the next sync, until then the rolled back record is skipped in memory
+     */
+    private synchronized void decide(JournalRecord record, int position, int voidSize, boolean committed) {
+        reserved -= voidSize;
+        if (committed) {
+            index(record);
+        } else {
+            rolledBack.add(record.getTransactionId());
+            // the room was reserved by append, the write cannot run out of space
+            write(Collections.singletonList(JournalRecord.voidOf(record.getTransactionId())), true, 0);
+        }
+        undecided.remove(position);
+    }
+
+    /**
+     * keep is extra room that must stay free after the records, for a void marker that may follow them
+     */
+    private synchronized CompletableFuture<Void> write(List<JournalRecord> records, boolean indexNow, int keep) {
+        List<byte[]> payloads = new ArrayList<>(records.size());
+        int end = writePosition;
+        for (JournalRecord record : records) {
+            byte[] payload = record.encode();
+            payloads.add(payload);
+            end += RECORD_HEADER_SIZE + payload.length;
+        }
+        if (end + reserved + keep + Integer.BYTES > capacity) {
+            return null;
+        }
+
+        for (int i = 0; i < records.size(); i++) {
+            writeRecord(payloads.get(i));
+            if (indexNow) {
+                index(records.get(i));
+            }
+        }
+
+        CompletableFuture<Void> synced = new CompletableFuture<>();
+        syncWaiters.add(synced);
+        return synced;
+    }
+
+    private void writeRecord(byte[] payload) {
+        int position = writePosition;
+        int end = position + RECORD_HEADER_SIZE + payload.length;
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer view = buffer.duplicate();
+        view.position(position + RECORD_HEADER_SIZE);
+        view.put(payload);
+        buffer.putInt(end, 0);
+        buffer.putInt(position + Integer.BYTES, (int) crc.getValue());
+        buffer.putInt(position, payload.length);
+        writePosition = end;
+    }
+
+    private void index(JournalRecord record) {
+        if (record.isVoided()) {
+            pending.remove(record.getTransactionId());
+        } else {
+            pending.put(record.getTransactionId(), record);
+        }
+    }
+
+    private byte[] readPayload(int position) {
+        if (position + RECORD_HEADER_SIZE > capacity) {
+            return null;
+        }
+        int length = buffer.getInt(position);
+        if (length <= 0 || position + RECORD_HEADER_SIZE + length > capacity) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(position + RECORD_HEADER_SIZE);
+        view.get(payload);
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue() == buffer.getInt(position + Integer.BYTES) ? payload : null;
+    }
+
+    private void awaitSync(CompletableFuture<Void> synced) {
+        try {
+            synced.get(syncTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the transaction journal", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Transaction journal sync failed", e);
+        }
+    }
+
+    private void syncLoop() {
+        List<CompletableFuture<Void>> group = new ArrayList<>();
+        while (running || !syncWaiters.isEmpty()) {
+            try {
+                CompletableFuture<Void> first = syncWaiters.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                syncWaiters.drainTo(group);
+
+                long start = System.nanoTime();
+                buffer.force();
+                syncTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                groupSize.record(group.size());
+                group.forEach(synced -> synced.complete(null));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Transaction journal sync failed", e);
+                group.forEach(synced -> synced.completeExceptionally(e));
+            } finally {
+                group.clear();
+            }
+        }
+    }
+}
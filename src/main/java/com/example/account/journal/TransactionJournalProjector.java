@@ -0,0 +1,92 @@
+package com.example.account.journal;
+
+import com.example.account.domain.Transaction;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * copies journaled records into the transaction table
+ * re-projecting a record is a no-op, so a crash between commit and checkpoint is safe
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransactionJournalProjector {
+    private final TransactionJournal transactionJournal;
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${account.journal.projection-batch-size:500}")
+    private int batchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void replay() {
+        int total = 0;
+        int projected;
+        while ((projected = project()) > 0) {
+            total += projected;
+        }
+        if (total > 0) {
+            log.info("Replayed {} journal records", total);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${account.journal.projection-interval-ms:100}")
+    public void scheduledProject() {
+        project();
+    }
+
+    public synchronized int project() {
+        if (!transactionJournal.isEnabled()) {
+            return 0;
+        }
+        JournalBatch batch = transactionJournal.read(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        transactionTemplate.executeWithoutResult(status -> write(batch.getRecords()));
+        transactionJournal.checkpoint(batch);
+        return batch.getRecords().size();
+    }
+
+    /**
+     * also used by the ledger flush, runs inside the caller's database transaction
+     */
+    public void write(List<JournalRecord> records) {
+        Set<String> voided = records.stream()
+                .filter(JournalRecord::isVoided)
+                .map(JournalRecord::getTransactionId)
+                .collect(Collectors.toSet());
+        List<JournalRecord> live = records.stream()
+                .filter(record -> !record.isVoided() && !voided.contains(record.getTransactionId()))
+                .collect(Collectors.toList());
+
+        if (!live.isEmpty()) {
+            Set<String> existing = new HashSet<>(transactionRepository.findExistingTranscationIds(
+                    live.stream().map(JournalRecord::getTransactionId).collect(Collectors.toList())));
+            List<Transaction> transactions = live.stream()
+                    .filter(record -> !existing.contains(record.getTransactionId()))
+                    .map(record -> record.toTransaction(accountRepository.getById(record.getAccountId())))
+                    .collect(Collectors.toList());
+            transactionRepository.saveAll(transactions);
+        }
+        if (!voided.isEmpty()) {
+            // the voided record may have been projected by an earlier batch
+            transactionRepository.deleteByTranscationIdIn(voided);
+        }
+    }
+}
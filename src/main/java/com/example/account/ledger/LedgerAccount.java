@@ -0,0 +1,37 @@
+package com.example.account.ledger;
+
+import com.example.account.domain.Account;
+import com.example.account.type.AccountStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * immutable balance of a ledger owned account, a mutation replaces it with the next version
+ */
+@Getter
+@AllArgsConstructor
+public class LedgerAccount {
+    private final Long id;
+    private final String accountNumber;
+    private final Long userId;
+    private final AccountStatus accountStatus;
+    private final Long balance;
+    private final Long version;
+
+    LedgerAccount withBalance(Long balance) {
+        return new LedgerAccount(id, accountNumber, userId, accountStatus, balance, version + 1);
+    }
+
+    /**
+     * a detached stub carrying only what the summary cache and transaction records read
+     */
+    public Account toAccount() {
+        return Account.builder()
+                .id(id)
+                .accountNumber(accountNumber)
+                .accountStatus(accountStatus)
+                .balance(balance)
+                .version(version)
+                .build();
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.account.ledger;
+
+import com.example.account.type.TransactionType;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.UnaryOperator;
+
+/**
+ * one balance mutation queued for a shard
+ * the shard and a caller giving up both claim it first, so a command is either applied or abandoned, never both
+ */
+@Getter
+@RequiredArgsConstructor
+class LedgerCommand {
+    private final TransactionType transactionType;
+    private final String accountNumber;
+    private final Long amount;
+    // throws AccountException when the mutation is declined
+    private final UnaryOperator<LedgerAccount> mutation;
+    private final CompletableFuture<LedgerResult> result = new CompletableFuture<>();
+    private final AtomicBoolean claimed = new AtomicBoolean();
+
+    boolean claim() {
+        return claimed.compareAndSet(false, true);
+    }
+}
@@ -0,0 +1,257 @@
+package com.example.account.ledger;
+
+import com.example.account.domain.Transaction;
+import com.example.account.exception.AccountException;
+import com.example.account.journal.JournalBatch;
+import com.example.account.journal.JournalRecord;
+import com.example.account.journal.TransactionJournal;
+import com.example.account.journal.TransactionJournalProjector;
+import com.example.account.repository.AccountRepository;
+import com.example.account.service.TransactionIdGenerator;
+import com.example.account.service.TransactionRules;
+import com.example.account.type.ErrorCode;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+
+/**
+ * keeps the balances of accounts flagged hot in memory, sharded by account number
+ *
+ * a mutation is acknowledged once its record is synced to the ledger log
+ * the flush copies logged records into the transaction table and the balance of the last record
+ * per account into the account table, then checkpoints the log, so the account table plus the
+ * unflushed log always rebuilds the in-memory balances
+ * accounts are loaded once at startup, flagging a hot account takes effect on restart,
+ * a hot account cannot be unregistered, its flag has to be cleared and the node restarted first
+ *
+ * every node with the ledger enabled would load every hot account and debit it on its own,
+ * nothing assigns one owner per account yet, so the ledger only starts with account.lock.mode=local,
+ * which is itself single node only
+ */
+@Slf4j
+@Component
+public class LedgerEngine {
+    private final boolean enabled;
+    private final AccountRepository accountRepository;
+    private final TransactionJournalProjector transactionJournalProjector;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final MeterRegistry meterRegistry;
+    private final TransactionJournal ledgerLog;
+    private final int shardCount;
+    private final int queueCapacity;
+    private final int batchSize;
+    private final int flushBatchSize;
+    private final long timeoutMillis;
+
+    private final Map<String, LedgerAccount> accounts = new ConcurrentHashMap<>();
+    private LedgerShard[] shards = new LedgerShard[0];
+
+    public LedgerEngine(AccountRepository accountRepository,
+                        TransactionJournalProjector transactionJournalProjector,
+                        TransactionTemplate transactionTemplate,
+                        TransactionIdGenerator transactionIdGenerator,
+                        MeterRegistry meterRegistry,
+                        @Value("${account.ledger.enabled:false}") boolean enabled,
+                        @Value("${account.lock.mode:redis}") String lockMode,
+                        @Value("${account.ledger.shards:4}") int shardCount,
+                        @Value("${account.ledger.queue-capacity:10000}") int queueCapacity,
+                        @Value("${account.ledger.batch-size:256}") int batchSize,
+                        @Value("${account.ledger.path:./journal/ledger.journal}") String path,
+                        @Value("${account.ledger.size-mb:64}") int sizeMb,
+                        @Value("${account.ledger.sync-timeout-ms:1000}") long syncTimeoutMillis,
+                        @Value("${account.ledger.flush-batch-size:5000}") int flushBatchSize) {
+        if (enabled && !"local".equals(lockMode)) {
+            throw new IllegalStateException("account.ledger.enabled requires account.lock.mode=local, " +
+                    "hot accounts have no single owner across nodes");
+        }
+        this.enabled = enabled;
+        this.accountRepository = accountRepository;
+        this.transactionJournalProjector = transactionJournalProjector;
+        this.transactionTemplate = transactionTemplate;
+        this.transactionIdGenerator = transactionIdGenerator;
+        this.meterRegistry = meterRegistry;
+        this.ledgerLog = new TransactionJournal("ledger", enabled, Paths.get(path), sizeMb, syncTimeoutMillis, meterRegistry);
+        this.shardCount = shardCount;
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.flushBatchSize = flushBatchSize;
+        // queued behind a full shard plus one sync of the log
+        this.timeoutMillis = syncTimeoutMillis * 2;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        ledgerLog.open();
+        for (LedgerAccount account : accountRepository.findLedgerAccounts()) {
+            accounts.put(account.getAccountNumber(), account);
+        }
+        replay();
+
+        DistributionSummary batchSizeSummary = DistributionSummary.builder("account.ledger.batch.size")
+                .register(meterRegistry);
+        shards = new LedgerShard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new LedgerShard(i, accounts, ledgerLog, transactionIdGenerator, queueCapacity, batchSize, batchSizeSummary);
+            Gauge.builder("account.ledger.queue.size", shards[i], LedgerShard::size)
+                    .tag("shard", String.valueOf(i))
+                    .register(meterRegistry);
+            shards[i].start();
+        }
+        Gauge.builder("account.ledger.accounts", accounts, Map::size)
+                .register(meterRegistry);
+        log.info("Ledger opened. accounts : {}, shards : {}", accounts.size(), shardCount);
+    }
+
+    /**
+     * records carry the balance after the mutation, so the last unflushed record per account is its balance
+     */
+    private void replay() {
+        JournalBatch batch = ledgerLog.read(Integer.MAX_VALUE);
+        for (JournalRecord record : batch.getRecords()) {
+            LedgerAccount account = accounts.get(record.getAccountNumber());
+            if (account != null && !record.isVoided()) {
+                accounts.put(account.getAccountNumber(), account.withBalance(record.getBalanceSnapshot()));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        for (LedgerShard shard : shards) {
+            shard.stop(timeoutMillis);
+        }
+        flush();
+        ledgerLog.close();
+    }
+
+    public boolean owns(String accountNumber) {
+        return accounts.containsKey(accountNumber);
+    }
+
+    /**
+     * the balance as of the last batch its shard committed
+     */
+    public Optional<Long> balance(String accountNumber) {
+        return Optional.ofNullable(accounts.get(accountNumber)).map(LedgerAccount::getBalance);
+    }
+
+    public LedgerResult useBalance(Long userId, String accountNumber, Long amount) {
+        return submit(new LedgerCommand(USE, accountNumber, amount, account -> {
+            TransactionRules.validateUserBalance(userId, account.getUserId(),
+                    account.getAccountStatus(), account.getBalance(), amount);
+            return account.withBalance(account.getBalance() - amount);
+        }));
+    }
+
+    public LedgerResult cancelBalance(Transaction transaction, String accountNumber, Long amount) {
+        return submit(new LedgerCommand(CANCEL, accountNumber, amount, account -> {
+            TransactionRules.validateCancelBalance(transaction.getAccount().getId(), account.getId(),
+                    transaction.getAmount(), amount, transaction.getTransactedAt());
+            return account.withBalance(account.getBalance() + amount);
+        }));
+    }
+
+    /**
+     * logged records are visible before the flush has written them to the table
+     */
+    public Optional<Transaction> findPending(String transactionId) {
+        return ledgerLog.findPending(transactionId);
+    }
+
+    private LedgerResult submit(LedgerCommand command) {
+        LedgerShard shard = shards[Math.floorMod(command.getAccountNumber().hashCode(), shards.length)];
+        if (!shard.offer(command)) {
+            throw new AccountException(ErrorCode.LEDGER_UNAVAILABLE);
+        }
+        try {
+            return command.getResult().get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (command.claim()) {
+                throw new AccountException(ErrorCode.LEDGER_UNAVAILABLE);
+            }
+            // the shard is already applying it and answers once its log sync finishes
+            return await(command);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (command.claim()) {
+                throw new AccountException(ErrorCode.LEDGER_UNAVAILABLE);
+            }
+            return await(command);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static LedgerResult await(LedgerCommand command) {
+        try {
+            return command.getResult().join();
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        if (cause instanceof AccountException) {
+            return (AccountException) cause;
+        }
+        return new IllegalStateException("Ledger command failed", cause);
+    }
+
+    @Scheduled(fixedDelayString = "${account.ledger.flush-interval-ms:1000}")
+    public void scheduledFlush() {
+        int flushed;
+        do {
+            flushed = flush();
+        } while (flushed == flushBatchSize);
+    }
+
+    public synchronized int flush() {
+        if (!enabled) {
+            return 0;
+        }
+        JournalBatch batch = ledgerLog.read(flushBatchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        Map<Long, JournalRecord> lastRecords = new HashMap<>();
+        Map<Long, Long> mutations = new HashMap<>();
+        for (JournalRecord record : batch.getRecords()) {
+            if (!record.isVoided()) {
+                lastRecords.put(record.getAccountId(), record);
+                mutations.merge(record.getAccountId(), 1L, Long::sum);
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            transactionJournalProjector.write(batch.getRecords());
+            lastRecords.forEach((accountId, record) -> accountRepository.applyLedgerSnapshot(
+                    accountId, record.getBalanceSnapshot(), mutations.get(accountId), now));
+        });
+        ledgerLog.checkpoint(batch);
+        return batch.getRecords().size();
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.account.ledger;
+
+import com.example.account.dto.TransactionDto;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class LedgerResult {
+    private final TransactionDto transaction;
+    private final LedgerAccount account;
+}
@@ -0,0 +1,205 @@
+package com.example.account.ledger;
+
+import com.example.account.domain.Transaction;
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.journal.TransactionJournal;
+import com.example.account.service.TransactionIdGenerator;
+import com.example.account.type.ErrorCode;
+import io.micrometer.core.instrument.DistributionSummary;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.example.account.type.TransactionResultType.S;
+
+/**
+ * single writer event loop for the accounts hashed to it
+ *
+ * the thread drains its queue into a batch, applies the batch to staged copies of the accounts,
+ * appends every resulting record to the ledger log with one sync, and only then publishes the
+ * new balances and answers the callers
+ * once the records are in the log the flush projects them, so from there the batch is applied
+ * and the thread waits out a slow sync instead of declining it
+ */
+@Slf4j
+class LedgerShard {
+    private static final long SYNC_WARN_MILLIS = 1000L;
+
+    private final BlockingQueue<LedgerCommand> commands;
+    private final Map<String, LedgerAccount> accounts;
+    private final TransactionJournal ledgerLog;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final int batchSize;
+    private final DistributionSummary batchSizeSummary;
+    private final Thread thread;
+
+    private volatile boolean running;
+
+    LedgerShard(int index,
+                Map<String, LedgerAccount> accounts,
+                TransactionJournal ledgerLog,
+                TransactionIdGenerator transactionIdGenerator,
+                int queueCapacity,
+                int batchSize,
+                DistributionSummary batchSizeSummary) {
+        this.commands = new ArrayBlockingQueue<>(queueCapacity);
+        this.accounts = accounts;
+        this.ledgerLog = ledgerLog;
+        this.transactionIdGenerator = transactionIdGenerator;
+        this.batchSize = batchSize;
+        this.batchSizeSummary = batchSizeSummary;
+        this.thread = new Thread(this::run, "ledger-shard-" + index);
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        running = true;
+        thread.start();
+    }
+
+    /**
+     * queued commands are still applied before the thread ends
+     */
+    void stop(long timeoutMillis) {
+        running = false;
+        try {
+            thread.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    boolean offer(LedgerCommand command) {
+        return running && commands.offer(command);
+    }
+
+    int size() {
+        return commands.size();
+    }
+
+    private void run() {
+        List<LedgerCommand> batch = new ArrayList<>(batchSize);
+        while (running || !commands.isEmpty()) {
+            try {
+                LedgerCommand first = commands.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                commands.drainTo(batch, batchSize - 1);
+                batchSizeSummary.record(batch.size());
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Ledger shard failed to process a batch", e);
+                batch.forEach(command -> command.getResult().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(List<LedgerCommand> batch) {
+        Map<String, LedgerAccount> staged = new HashMap<>();
+        List<Transaction> transactions = new ArrayList<>(batch.size());
+        List<LedgerCommand> applied = new ArrayList<>(batch.size());
+        List<LedgerResult> results = new ArrayList<>(batch.size());
+        Map<LedgerCommand, AccountException> declined = new LinkedHashMap<>();
+
+        for (LedgerCommand command : batch) {
+            if (!command.claim()) {
+                // the caller gave up waiting
+                continue;
+            }
+            LedgerAccount account = staged.getOrDefault(command.getAccountNumber(), accounts.get(command.getAccountNumber()));
+            try {
+                if (account == null) {
+                    throw new AccountException(ErrorCode.ACCOUNT_NOT_FOUND);
+                }
+                LedgerAccount next = command.getMutation().apply(account);
+                Transaction transaction = buildTransaction(command, next);
+
+                staged.put(next.getAccountNumber(), next);
+                transactions.add(transaction);
+                applied.add(command);
+                results.add(new LedgerResult(TransactionDto.fromEntity(transaction), next));
+            } catch (AccountException e) {
+                declined.put(command, e);
+            }
+        }
+
+        AccountException failure = append(transactions);
+        if (failure == null) {
+            accounts.putAll(staged);
+        }
+        for (int i = 0; i < applied.size(); i++) {
+            if (failure == null) {
+                applied.get(i).getResult().complete(results.get(i));
+            } else {
+                applied.get(i).getResult().completeExceptionally(failure);
+            }
+        }
+        declined.forEach((command, e) -> command.getResult().completeExceptionally(e));
+    }
+
+    /**
+     * declines only when nothing was written, a written batch is answered after its sync however long it takes
+     */
+    private AccountException append(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return null;
+        }
+        CompletableFuture<Void> synced;
+        try {
+            synced = ledgerLog.writeAll(transactions);
+        } catch (RuntimeException e) {
+            log.error("Ledger log append failed", e);
+            return new AccountException(ErrorCode.LEDGER_UNAVAILABLE);
+        }
+        if (synced == null) {
+            return new AccountException(ErrorCode.LEDGER_UNAVAILABLE);
+        }
+        awaitSync(synced);
+        return null;
+    }
+
+    private void awaitSync(CompletableFuture<Void> synced) {
+        while (true) {
+            try {
+                synced.get(SYNC_WARN_MILLIS, TimeUnit.MILLISECONDS);
+                return;
+            } catch (TimeoutException e) {
+                log.warn("Ledger log sync is slow, still waiting before answering the batch");
+            } catch (ExecutionException e) {
+                // the records are in the log and the flush projects them, only their durability is in doubt
+                log.error("Ledger log sync failed, the batch is applied without a confirmed sync", e.getCause());
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private Transaction buildTransaction(LedgerCommand command, LedgerAccount account) {
+        return Transaction.builder()
+                .transactionType(command.getTransactionType())
+                .transactionResultType(S)
+                .account(account.toAccount())
+                .amount(command.getAmount())
+                .balanceSnapshot(account.getBalance())
+                .transcationId(transactionIdGenerator.generate())
+                .transactedAt(LocalDateTime.now())
+                .build();
+    }
+}
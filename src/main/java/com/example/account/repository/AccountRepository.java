@@ -2,15 +2,27 @@ package com.example.account.repository;
 
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
+import com.example.account.dto.AccountSummary;
+import com.example.account.ledger.LedgerAccount;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface AccountRepository extends JpaRepository<Account, Long> {
-    Optional<Account> findFirstByOrderByIdDesc();
+    // not read-only, the account number counter must start from the primary
+    @Transactional
+    @Query("select max(a.accountNumber) from Account a")
+    Optional<String> findMaxAccountNumber();
 
     Integer countByAccountUser(AccountUser accountUser);
 
@@ -18,4 +30,47 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
 
     List<Account> findByAccountUser(AccountUser accountUser);
 
+    @Query("select new com.example.account.dto.AccountSummary(a.accountNumber, a.balance, a.version) " +
+            "from Account a where a.accountUser.id = :userId order by a.id")
+    List<AccountSummary> findAccountSummariesByUserId(@Param("userId") Long userId);
+
+    @EntityGraph(attributePaths = "accountUser")
+    Optional<Account> findWithAccountUserById(Long id);
+
+    List<Account> findByAccountNumberIn(Collection<String> accountNumbers);
+
+    @Query("select a.accountUser.id as userId, count(a) as accounts from Account a " +
+            "where a.accountUser.id in :userIds group by a.accountUser.id")
+    List<UserAccountCount> countByAccountUserIds(@Param("userIds") Collection<Long> userIds);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Account a set a.balance = a.balance - :amount, a.version = a.version + 1, a.updatedAt = :now " +
+            "where a.accountNumber = :accountNumber and a.accountUser.id = :userId " +
+            "and a.balance >= :amount and a.accountStatus = com.example.account.type.AccountStatus.IN_USE")
+    int debitBalance(@Param("accountNumber") String accountNumber,
+                     @Param("userId") Long userId,
+                     @Param("amount") Long amount,
+                     @Param("now") LocalDateTime now);
+
+    // not read-only, the ledger must load the balances its last flush wrote to the primary
+    @Transactional
+    @Query("select new com.example.account.ledger.LedgerAccount(a.id, a.accountNumber, a.accountUser.id, a.accountStatus, a.balance, a.version) " +
+            "from Account a where a.hot = true")
+    List<LedgerAccount> findLedgerAccounts();
+
+    /**
+     * the balance is absolute, the version moves by the number of ledger mutations it covers
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update Account a set a.balance = :balance, a.version = a.version + :mutations, a.updatedAt = :now where a.id = :id")
+    int applyLedgerSnapshot(@Param("id") Long id,
+                            @Param("balance") Long balance,
+                            @Param("mutations") Long mutations,
+                            @Param("now") LocalDateTime now);
+
+    interface UserAccountCount {
+        Long getUserId();
+
+        Long getAccounts();
+    }
 }
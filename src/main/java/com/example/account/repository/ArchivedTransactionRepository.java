@@ -0,0 +1,54 @@
+package com.example.account.repository;
+
+import com.example.account.domain.ArchivedTransaction;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+@Repository
+public interface ArchivedTransactionRepository extends JpaRepository<ArchivedTransaction, Long> {
+    @EntityGraph(attributePaths = "account")
+    Optional<ArchivedTransaction> findByTranscationId(String transactionId);
+
+    @Query("select t from ArchivedTransaction t where t.account.id = :accountId order by t.transactedAt desc, t.id desc")
+    List<ArchivedTransaction> findLatestByAccountId(@Param("accountId") Long accountId, Pageable pageable);
+
+    @Query("select t from ArchivedTransaction t where t.account.id = :accountId " +
+            "and (t.transactedAt < :transactedAt or (t.transactedAt = :transactedAt and t.id < :id)) " +
+            "order by t.transactedAt desc, t.id desc")
+    List<ArchivedTransaction> findByAccountIdBefore(@Param("accountId") Long accountId,
+                                                    @Param("transactedAt") LocalDateTime transactedAt,
+                                                    @Param("id") Long id,
+                                                    Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select t from ArchivedTransaction t where t.account.id = :accountId " +
+            "and t.transactedAt >= :from and t.transactedAt < :to order by t.transactedAt, t.id")
+    Stream<ArchivedTransaction> streamByAccountId(@Param("accountId") Long accountId,
+                                                  @Param("from") LocalDateTime from,
+                                                  @Param("to") LocalDateTime to);
+
+    /**
+     * copies the rows in the database, nothing is loaded into the persistence context
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = "insert into transaction_archive (id, transaction_type, transaction_result_type, " +
+            "account_id, amount, balance_snapshot, transcation_id, transacted_at, created_at, updated_at, archived_at) " +
+            "select id, transaction_type, transaction_result_type, account_id, amount, balance_snapshot, " +
+            "transcation_id, transacted_at, created_at, updated_at, cast(:archivedAt as timestamp) from transaction where id in :ids")
+    int copyFromTransactions(@Param("ids") Collection<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+}
@@ -3,16 +3,60 @@ package com.example.account.repository;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.domain.Transaction;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
 //    transcationId
+    @EntityGraph(attributePaths = "account")
     Optional<Transaction> findByTranscationId(String transactionId);
 
+    @Query("select t.transcationId from Transaction t where t.transcationId in :transactionIds")
+    List<String> findExistingTranscationIds(@Param("transactionIds") Collection<String> transactionIds);
+
+    @Modifying
+    @Query("delete from Transaction t where t.transcationId in :transactionIds")
+    int deleteByTranscationIdIn(@Param("transactionIds") Collection<String> transactionIds);
+
+    @Query("select t.id from Transaction t where t.transactedAt < :horizon order by t.transactedAt, t.id")
+    List<Long> findIdsTransactedBefore(@Param("horizon") LocalDateTime horizon, Pageable pageable);
+
+    @Modifying
+    @Query("delete from Transaction t where t.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select t from Transaction t where t.account.id = :accountId order by t.transactedAt desc, t.id desc")
+    List<Transaction> findLatestByAccountId(@Param("accountId") Long accountId, Pageable pageable);
+
+    @Query("select t from Transaction t where t.account.id = :accountId " +
+            "and (t.transactedAt < :transactedAt or (t.transactedAt = :transactedAt and t.id < :id)) " +
+            "order by t.transactedAt desc, t.id desc")
+    List<Transaction> findByAccountIdBefore(@Param("accountId") Long accountId,
+                                            @Param("transactedAt") LocalDateTime transactedAt,
+                                            @Param("id") Long id,
+                                            Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select t from Transaction t where t.account.id = :accountId " +
+            "and t.transactedAt >= :from and t.transactedAt < :to order by t.transactedAt, t.id")
+    Stream<Transaction> streamByAccountId(@Param("accountId") Long accountId,
+                                          @Param("from") LocalDateTime from,
+                                          @Param("to") LocalDateTime to);
 
 }
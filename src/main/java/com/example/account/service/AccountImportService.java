@@ -0,0 +1,208 @@
+package com.example.account.service;
+
+import com.example.account.aop.ServiceMetrics;
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.dto.AccountImport;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * streams a csv of user_id,name,initial_balance, one account per line, creating missing users on the way
+ *
+ * lines are imported in chunks of batch-size, one database transaction and one jdbc batch per chunk,
+ * with the account numbers of a chunk reserved as one range
+ * a chunk that fails rolls back alone, chunks before it stay imported
+ * and its lines are reported as rejected, so only the rejected lines need to be imported again
+ */
+@Slf4j
+@ServiceMetrics
+@Service
+public class AccountImportService {
+    private static final long MAX_ACCOUNTS_PER_USER = 10;
+
+    private final EntityManager entityManager;
+    private final AccountRepository accountRepository;
+    private final AccountUserRepository accountUserRepository;
+    private final AccountNumberAllocator accountNumberAllocator;
+    private final AccountSummaryCache accountSummaryCache;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxErrors;
+
+    public AccountImportService(EntityManager entityManager,
+                                AccountRepository accountRepository,
+                                AccountUserRepository accountUserRepository,
+                                AccountNumberAllocator accountNumberAllocator,
+                                AccountSummaryCache accountSummaryCache,
+                                TransactionTemplate transactionTemplate,
+                                @Value("${account.import.batch-size:1000}") int batchSize,
+                                @Value("${account.import.max-errors:100}") int maxErrors) {
+        this.entityManager = entityManager;
+        this.accountRepository = accountRepository;
+        this.accountUserRepository = accountUserRepository;
+        this.accountNumberAllocator = accountNumberAllocator;
+        this.accountSummaryCache = accountSummaryCache;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxErrors = maxErrors;
+    }
+
+    public AccountImport.Response importAccounts(Reader reader) throws IOException {
+        long start = System.nanoTime();
+        Progress progress = new Progress(maxErrors);
+        BufferedReader lines = new BufferedReader(reader);
+        List<AccountImport.Row> chunk = new ArrayList<>(batchSize);
+
+        String line;
+        int lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (lineNumber == 1 && isHeader(line))) {
+                continue;
+            }
+            progress.rows++;
+            try {
+                chunk.add(AccountImport.Row.parse(lineNumber, line));
+            } catch (IllegalArgumentException e) {
+                progress.reject(lineNumber, ErrorCode.INVALID_REQUEST);
+            }
+            if (chunk.size() == batchSize) {
+                importChunk(chunk, progress);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, progress);
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        return AccountImport.Response.builder()
+                .rows(progress.rows)
+                .usersCreated(progress.usersCreated)
+                .accountsCreated(progress.accountsCreated)
+                .rejected(progress.rejected)
+                .elapsedMillis(elapsedNanos / 1_000_000)
+                .rowsPerSecond(progress.rows / Math.max(elapsedNanos / 1e9, 1e-9))
+                .errors(progress.errors)
+                .build();
+    }
+
+    private static boolean isHeader(String line) {
+        return !Character.isDigit(line.trim().charAt(0));
+    }
+
+    private void importChunk(List<AccountImport.Row> rows, Progress progress) {
+        Progress chunkProgress;
+        try {
+            chunkProgress = transactionTemplate.execute(status -> writeChunk(rows));
+        } catch (RuntimeException e) {
+            log.warn("Import chunk of lines {} to {} failed", rows.get(0).getLineNumber(),
+                    rows.get(rows.size() - 1).getLineNumber(), e);
+            chunkProgress = new Progress(maxErrors);
+            for (AccountImport.Row row : rows) {
+                chunkProgress.reject(row.getLineNumber(), ErrorCode.IMPORT_CHUNK_FAILED);
+            }
+        }
+        progress.add(chunkProgress);
+    }
+
+    private Progress writeChunk(List<AccountImport.Row> rows) {
+        Progress progress = new Progress(maxErrors);
+        entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+
+        Set<Long> userIds = rows.stream().map(AccountImport.Row::getUserId).collect(Collectors.toSet());
+        Map<Long, AccountUser> users = accountUserRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(AccountUser::getId, Function.identity()));
+        Map<Long, Long> accountCounts = accountRepository.countByAccountUserIds(userIds).stream()
+                .collect(Collectors.toMap(AccountRepository.UserAccountCount::getUserId, AccountRepository.UserAccountCount::getAccounts));
+
+        LocalDateTime now = LocalDateTime.now();
+        List<AccountImport.Row> accepted = new ArrayList<>(rows.size());
+        for (AccountImport.Row row : rows) {
+            if (!users.containsKey(row.getUserId())) {
+                AccountUser user = AccountUser.builder()
+                        .id(row.getUserId())
+                        .name(row.getName())
+                        .createdAt(now)
+                        .updatedAt(now)
+                        .build();
+                // assigned ids, persist skips the select a merge would issue
+                entityManager.persist(user);
+                users.put(user.getId(), user);
+                progress.usersCreated++;
+            }
+            long accounts = accountCounts.getOrDefault(row.getUserId(), 0L);
+            if (accounts >= MAX_ACCOUNTS_PER_USER) {
+                progress.reject(row.getLineNumber(), ErrorCode.MAX_ACCOUNT_PER_USER_10);
+                continue;
+            }
+            accountCounts.put(row.getUserId(), accounts + 1);
+            accepted.add(row);
+        }
+
+        Iterator<String> accountNumbers = accountNumberAllocator.allocate(accepted.size()).iterator();
+        for (AccountImport.Row row : accepted) {
+            entityManager.persist(Account.builder()
+                    .accountUser(users.get(row.getUserId()))
+                    .accountStatus(AccountStatus.IN_USE)
+                    .accountNumber(accountNumbers.next())
+                    .balance(row.getInitialBalance())
+                    .registeredAt(now)
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        progress.accountsCreated = accepted.size();
+        accepted.stream().map(AccountImport.Row::getUserId).distinct().forEach(accountSummaryCache::invalidate);
+        return progress;
+    }
+
+    private static class Progress {
+        private final int maxErrors;
+        private long rows;
+        private long usersCreated;
+        private long accountsCreated;
+        private long rejected;
+        private final List<AccountImport.Error> errors = new ArrayList<>();
+
+        Progress(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        void reject(int lineNumber, ErrorCode errorCode) {
+            rejected++;
+            if (errors.size() < maxErrors) {
+                errors.add(AccountImport.Error.of(lineNumber, errorCode));
+            }
+        }
+
+        void add(Progress chunk) {
+            usersCreated += chunk.usersCreated;
+            accountsCreated += chunk.accountsCreated;
+            rejected += chunk.rejected;
+            for (AccountImport.Error error : chunk.errors) {
+                if (errors.size() < maxErrors) {
+                    errors.add(error);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.account.service;
+
+import java.util.List;
+
+public interface AccountNumberAllocator {
+    String allocate();
+
+    /**
+     * reserve count consecutive numbers at once, for bulk imports
+     */
+    List<String> allocate(int count);
+}
@@ -0,0 +1,16 @@
+package com.example.account.service;
+
+/**
+ * reserve a block of account number offsets shared by every node
+ * returns the first offset of the reserved block
+ */
+public interface AccountNumberBlockSource {
+    long reserve(int size);
+
+    /**
+     * true when reserve only accepts account.number.block-size
+     */
+    default boolean isFixedSize() {
+        return false;
+    }
+}
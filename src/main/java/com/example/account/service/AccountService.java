@@ -1,17 +1,23 @@
 package com.example.account.service;
 
+import com.example.account.aop.OptimisticLockRetry;
+import com.example.account.aop.ServiceMetrics;
+import com.example.account.datasource.ReadYourWrites;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.dto.AccountDto;
+import com.example.account.dto.AccountInfo;
+import com.example.account.dto.AccountSummary;
 import com.example.account.exception.AccountException;
+import com.example.account.ledger.LedgerEngine;
 import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import javax.transaction.Transactional;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Objects;
@@ -20,11 +26,16 @@ import java.util.stream.Collectors;
 
 import static com.example.account.type.ErrorCode.*;
 
+@ServiceMetrics
 @Service
 @RequiredArgsConstructor
 public class AccountService {
     private final AccountRepository accountRepository;
     private final AccountUserRepository accountUserRepository;
+    private final AccountNumberAllocator accountNumberAllocator;
+    private final AccountSummaryCache accountSummaryCache;
+    private final ReadYourWrites readYourWrites;
+    private final LedgerEngine ledgerEngine;
 
     /**
      * search users
@@ -37,7 +48,9 @@ public class AccountService {
 
         validateCreateAccount(accountUser);
 
-        String newAccountNumber = accountRepository.findFirstByOrderByIdDesc().map(account -> (Integer.parseInt(account.getAccountNumber())) + 1 + "").orElse("1000000000");
+        String newAccountNumber = accountNumberAllocator.allocate();
+        accountSummaryCache.invalidate(accountUser.getId());
+        readYourWrites.markWritten(accountUser.getId());
 
         return AccountDto.fromEntity(accountRepository.save(Account.builder().accountUser(accountUser).accountStatus(AccountStatus.IN_USE).accountNumber(newAccountNumber).balance(initialBalance).registeredAt(LocalDateTime.now()).build()));
 
@@ -49,16 +62,24 @@ public class AccountService {
         }
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public Account getAccount(Long id) {
         if (id < 0) {
             throw new RuntimeException("Minus");
         }
-        return accountRepository.findById(id).get();
+        return accountRepository.findWithAccountUserById(id).get();
     }
 
+    /**
+     * the balance of a hot account lives in the ledger, not in the row checked here,
+     * clear its hot flag and restart before unregistering it
+     */
+    @OptimisticLockRetry
     @Transactional
     public AccountDto deleteAccount(Long userId, String accountNumber) {
+        if (ledgerEngine.owns(accountNumber)) {
+            throw new AccountException(LEDGER_OWNED_ACCOUNT);
+        }
         AccountUser accountUser = accountUserRepository.findById(userId).orElseThrow(() -> new AccountException(USER_NOT_FOUND));
         Account account = accountRepository.findByAccountNumber(accountNumber).orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
 
@@ -66,6 +87,8 @@ public class AccountService {
 
         account.setAccountStatus(AccountStatus.UNREGISTERED);
         account.setUnRegisteredAt(LocalDateTime.now());
+        accountSummaryCache.invalidate(accountUser.getId());
+        readYourWrites.markWritten(accountUser.getId());
         return AccountDto.fromEntity(account);
     }
 
@@ -84,12 +107,29 @@ public class AccountService {
     }
 
 
-    @Transactional
-    public List<AccountDto> getAccoutsByUserId(Long userId) {
-        AccountUser accountUser = accountUserRepository.findById(userId)
-                .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
-        List<Account> accounts = accountRepository.findByAccountUser(accountUser);
+    /**
+     * served from the account summary cache, a miss selects only the listed columns, no account or user entity is loaded
+     * the miss reads from the replica when one is configured, unless the user wrote recently
+     */
+    @Transactional(readOnly = true)
+    public List<AccountInfo> getAccoutsByUserId(Long userId) {
+        Optional<List<AccountSummary>> cached = accountSummaryCache.get(userId);
+        if (cached.isPresent()) {
+            return toAccountInfos(cached.get());
+        }
+
+        long sequence = accountSummaryCache.currentSequence(userId);
+        List<AccountSummary> summaries = readYourWrites.read(userId, () -> {
+            if (!accountUserRepository.existsById(userId)) {
+                throw new AccountException(USER_NOT_FOUND);
+            }
+            return accountRepository.findAccountSummariesByUserId(userId);
+        });
+        accountSummaryCache.fill(userId, sequence, summaries);
+        return toAccountInfos(summaries);
+    }
 
-        return accounts.stream().map(AccountDto::fromEntity).collect(Collectors.toList());
+    private static List<AccountInfo> toAccountInfos(List<AccountSummary> summaries) {
+        return summaries.stream().map(AccountSummary::toAccountInfo).collect(Collectors.toList());
     }
 }
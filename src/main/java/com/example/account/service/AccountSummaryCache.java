@@ -0,0 +1,217 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.dto.AccountSummary;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * per user account listing, updated in place when a balance change commits on this node
+ * and dropped when another node publishes a change for the user
+ *
+ * a fill only lands if no write for a user of the same stripe happened since it started reading (write sequence),
+ * and an update only replaces a row with a newer account version, so commits finishing out of order never go back in time
+ */
+@Slf4j
+@Service
+public class AccountSummaryCache {
+    // a write only rejects the in-flight fills of users hashed to its stripe
+    private static final int SEQUENCE_STRIPES = 1024;
+
+    private final Cache<Long, Entry> cache;
+    private final AtomicLongArray writeSequences = new AtomicLongArray(SEQUENCE_STRIPES);
+    private final String nodeId = UUID.randomUUID().toString();
+    private final RTopic topic;
+    private int listenerId = -1;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter rejectedFills;
+    private final DistributionSummary entryAge;
+    private final Timer invalidationLag;
+
+    public AccountSummaryCache(RedissonClient redissonClient,
+                               MeterRegistry meterRegistry,
+                               @Value("${account.summary-cache.maximum-size:100000}") long maximumSize,
+                               @Value("${account.summary-cache.pubsub.enabled:true}") boolean pubsubEnabled) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .build();
+        this.topic = pubsubEnabled ? redissonClient.getTopic(AccountSummaryInvalidation.TOPIC, StringCodec.INSTANCE) : null;
+
+        this.hits = Counter.builder("account.summary.cache.requests")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("account.summary.cache.requests")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("account.summary.cache.hit.ratio", this, AccountSummaryCache::hitRatio)
+                .register(meterRegistry);
+        this.rejectedFills = Counter.builder("account.summary.cache.rejected_fills")
+                .description("fills discarded because a write happened while they were reading")
+                .register(meterRegistry);
+        this.entryAge = DistributionSummary.builder("account.summary.cache.entry.age")
+                .description("milliseconds since a served entry was loaded or last updated")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        this.invalidationLag = Timer.builder("account.summary.cache.invalidation.lag")
+                .description("time from a commit on another node to the invalidation here")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        if (topic != null) {
+            listenerId = topic.addListener(String.class, (channel, message) -> onRemoteChange(message));
+        }
+    }
+
+    @PreDestroy
+    public void unsubscribe() {
+        if (topic != null && listenerId != -1) {
+            topic.removeListener(listenerId);
+        }
+    }
+
+    public Optional<List<AccountSummary>> get(Long userId) {
+        Entry entry = cache.getIfPresent(userId);
+        if (entry == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        entryAge.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - entry.updatedAt));
+        return Optional.of(entry.summaries);
+    }
+
+    /**
+     * read before loading from the database and pass to fill
+     */
+    public long currentSequence(Long userId) {
+        return writeSequences.get(stripe(userId));
+    }
+
+    public void fill(Long userId, long sequence, List<AccountSummary> summaries) {
+        Entry loaded = new Entry(List.copyOf(summaries), System.nanoTime());
+        Entry stored = cache.asMap().compute(userId, (key, current) -> currentSequence(userId) == sequence ? loaded : current);
+        if (stored != loaded) {
+            rejectedFills.increment();
+        }
+    }
+
+    /**
+     * write-through of the account's balance once the surrounding transaction commits
+     */
+    public void update(Long userId, Account account) {
+        afterCommit(() -> {
+            writeSequences.incrementAndGet(stripe(userId));
+            cache.asMap().computeIfPresent(userId, (key, current) -> current.with(account));
+            publish(userId);
+        });
+    }
+
+    /**
+     * the user's set of accounts changed, drop the entry
+     */
+    public void invalidate(Long userId) {
+        afterCommit(() -> {
+            writeSequences.incrementAndGet(stripe(userId));
+            cache.invalidate(userId);
+            publish(userId);
+        });
+    }
+
+    private void onRemoteChange(String message) {
+        String[] parts = message.split("\\|");
+        if (parts.length != 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        Long userId = Long.valueOf(parts[1]);
+        writeSequences.incrementAndGet(stripe(userId));
+        cache.invalidate(userId);
+        invalidationLag.record(Math.max(0, System.currentTimeMillis() - Long.parseLong(parts[2])), TimeUnit.MILLISECONDS);
+    }
+
+    private static int stripe(Long userId) {
+        return Math.floorMod(Long.hashCode(userId), SEQUENCE_STRIPES);
+    }
+
+    private void publish(Long userId) {
+        if (topic == null) {
+            return;
+        }
+        try {
+            topic.publishAsync(AccountSummaryInvalidation.message(nodeId, userId));
+        } catch (RuntimeException e) {
+            log.warn("Failed to publish account summary invalidation. userId : {}", userId, e);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+            return;
+        }
+        action.run();
+    }
+
+    private double hitRatio() {
+        double requests = hits.count() + misses.count();
+        return requests == 0 ? 0 : hits.count() / requests;
+    }
+
+    @AllArgsConstructor
+    private static class Entry {
+        private final List<AccountSummary> summaries;
+        private final long updatedAt;
+
+        /**
+         * null drops the entry when the account is not listed, it was created after the fill
+         */
+        Entry with(Account account) {
+            List<AccountSummary> updated = new ArrayList<>(summaries.size());
+            boolean found = false;
+            for (AccountSummary summary : summaries) {
+                if (Objects.equals(summary.getAccountNumber(), account.getAccountNumber())) {
+                    found = true;
+                    if (summary.getVersion() != null && account.getVersion() != null && summary.getVersion() >= account.getVersion()) {
+                        return this;
+                    }
+                    updated.add(new AccountSummary(account.getAccountNumber(), account.getBalance(), account.getVersion()));
+                } else {
+                    updated.add(summary);
+                }
+            }
+            return found ? new Entry(List.copyOf(updated), System.nanoTime()) : null;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.account.service;
+
+/**
+ * message published when a user's account listing changed, nodeId|userId|epoch millis
+ * kept free of dependencies, the reactive stack publishes it too
+ */
+public final class AccountSummaryInvalidation {
+    public static final String TOPIC = "ACCOUNT_SUMMARY_INVALIDATION";
+    private static final String SEPARATOR = "|";
+
+    private AccountSummaryInvalidation() {
+    }
+
+    public static String message(String nodeId, Long userId) {
+        return nodeId + SEPARATOR + userId + SEPARATOR + System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.account.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Service
+public class BlockAccountNumberAllocator implements AccountNumberAllocator {
+    static final long FIRST_ACCOUNT_NUMBER = 1_000_000_000L;
+
+    private final AccountNumberBlockSource blockSource;
+    private final int blockSize;
+
+    private volatile Block block = new Block(0, 0);
+
+    public BlockAccountNumberAllocator(AccountNumberBlockSource blockSource,
+                                       @Value("${account.number.block-size:100}") int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("account.number.block-size must be positive");
+        }
+        this.blockSource = blockSource;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * serve numbers from the reserved block in memory
+     * only the thread that finds the block exhausted goes to the block source
+     */
+    @Override
+    public String allocate() {
+        while (true) {
+            Block current = block;
+            long offset = current.next();
+            if (offset >= 0) {
+                return String.valueOf(FIRST_ACCOUNT_NUMBER + offset);
+            }
+            refill(current);
+        }
+    }
+
+    /**
+     * a dedicated range straight from the block source, the in-memory block is left for single allocations
+     * a fixed size source gives ceil(count / block size) blocks instead, the unused tail of the last one is skipped
+     */
+    @Override
+    public List<String> allocate(int count) {
+        if (count <= 0) {
+            return Collections.emptyList();
+        }
+        int size = blockSource.isFixedSize() ? blockSize : count;
+        List<String> accountNumbers = new ArrayList<>(count);
+        while (accountNumbers.size() < count) {
+            long start = blockSource.reserve(size);
+            long end = start + Math.min(size, count - accountNumbers.size());
+            for (long offset = start; offset < end; offset++) {
+                accountNumbers.add(String.valueOf(FIRST_ACCOUNT_NUMBER + offset));
+            }
+        }
+        return accountNumbers;
+    }
+
+    private synchronized void refill(Block exhausted) {
+        if (block != exhausted) {
+            return;
+        }
+        long start = blockSource.reserve(blockSize);
+        block = new Block(start, start + blockSize);
+        log.debug("Reserved account number block [{}, {})", start, start + blockSize);
+    }
+
+    private static class Block {
+        private final AtomicLong cursor;
+        private final long end;
+
+        Block(long start, long end) {
+            this.cursor = new AtomicLong(start);
+            this.end = end;
+        }
+
+        long next() {
+            long offset = cursor.getAndIncrement();
+            return offset < end ? offset : -1;
+        }
+    }
+}
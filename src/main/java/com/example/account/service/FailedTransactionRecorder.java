@@ -0,0 +1,105 @@
+package com.example.account.service;
+
+import com.example.account.dto.FailedTransaction;
+import com.example.account.type.OverflowPolicy;
+import com.example.account.type.TransactionType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * failed use/cancel records are queued on the request thread and written in batches in the background
+ * the balance snapshot is stamped when the batch is written, the request thread never reads the balance for it
+ */
+@Slf4j
+@Service
+public class FailedTransactionRecorder {
+    private final TransactionService transactionService;
+    private final BlockingQueue<FailedTransaction> queue;
+    private final int batchSize;
+    private final OverflowPolicy overflowPolicy;
+
+    private final Counter droppedCounter;
+    private final Counter writtenCounter;
+
+    public FailedTransactionRecorder(TransactionService transactionService,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${account.failed-transaction.queue-capacity:10000}") int queueCapacity,
+                                     @Value("${account.failed-transaction.batch-size:500}") int batchSize,
+                                     @Value("${account.failed-transaction.overflow-policy:DROP_NEWEST}") OverflowPolicy overflowPolicy) {
+        this.transactionService = transactionService;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.overflowPolicy = overflowPolicy;
+
+        Gauge.builder("account.failed_transaction.queue.size", queue, BlockingQueue::size)
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("account.failed_transaction.dropped")
+                .register(meterRegistry);
+        this.writtenCounter = Counter.builder("account.failed_transaction.written")
+                .register(meterRegistry);
+    }
+
+    public void record(TransactionType transactionType, String accountNumber, Long amount) {
+        FailedTransaction failedTransaction = FailedTransaction.builder()
+                .transactionType(transactionType)
+                .accountNumber(accountNumber)
+                .amount(amount)
+                .failedAt(LocalDateTime.now())
+                .build();
+        if (queue.offer(failedTransaction)) {
+            return;
+        }
+
+        switch (overflowPolicy) {
+            case DROP_OLDEST:
+                while (!queue.offer(failedTransaction)) {
+                    if (queue.poll() != null) {
+                        droppedCounter.increment();
+                    }
+                }
+                break;
+            case CALLER_RUNS:
+                write(Collections.singletonList(failedTransaction));
+                break;
+            default:
+                droppedCounter.increment();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${account.failed-transaction.flush-interval-ms:200}")
+    public void flush() {
+        List<FailedTransaction> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    private void write(List<FailedTransaction> batch) {
+        try {
+            transactionService.saveFailedTransactions(batch);
+            writtenCounter.increment(batch.size());
+        } catch (RuntimeException e) {
+            droppedCounter.increment(batch.size());
+            log.error("Failed to save failed transactions. size : {}", batch.size(), e);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * the first request with a key stores an in-progress marker, runs, and replaces the marker with its response
+ * duplicates replay the stored response, or wait for it while the first request is still running
+ * a request declined with an AccountException removes its marker so the client can retry, those are raised before anything is written
+ * any other failure may come after the debit was applied, the key then keeps a failure marker for the whole retention time
+ * and duplicates are told the outcome is unknown instead of running the action a second time
+ * the marker has its own short ttl so a crashed node does not block the key for the whole retention time
+ * both are stored with a sha-256 fingerprint of the request, reusing a key for a different request is rejected
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+    static final String IN_PROGRESS = "IN_PROGRESS";
+    static final String OUTCOME_UNKNOWN = "OUTCOME_UNKNOWN";
+    private static final char SEPARATOR = ' ';
+
+    private final IdempotencyStore idempotencyStore;
+    private final ObjectMapper objectMapper;
+    private final long ttlMillis;
+    private final long inProgressTtlMillis;
+    private final long waitTimeoutMillis;
+    private final long pollIntervalMillis;
+
+    public IdempotencyService(IdempotencyStore idempotencyStore,
+                              ObjectMapper objectMapper,
+                              @Value("${account.idempotency.ttl-ms:86400000}") long ttlMillis,
+                              @Value("${account.idempotency.in-progress-ttl-ms:30000}") long inProgressTtlMillis,
+                              @Value("${account.idempotency.wait-timeout-ms:5000}") long waitTimeoutMillis,
+                              @Value("${account.idempotency.poll-interval-ms:20}") long pollIntervalMillis) {
+        this.idempotencyStore = idempotencyStore;
+        this.objectMapper = objectMapper;
+        this.ttlMillis = ttlMillis;
+        this.inProgressTtlMillis = inProgressTtlMillis;
+        this.waitTimeoutMillis = waitTimeoutMillis;
+        this.pollIntervalMillis = pollIntervalMillis;
+    }
+
+    public <T> T execute(String key, Object request, Class<T> responseType, Supplier<T> action) {
+        String fingerprint = fingerprint(request);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitTimeoutMillis);
+        while (true) {
+            if (idempotencyStore.putIfAbsent(key, inProgress(fingerprint), inProgressTtlMillis, TimeUnit.MILLISECONDS)) {
+                return runFirst(key, fingerprint, action);
+            }
+
+            String stored = idempotencyStore.get(key);
+            if (stored != null && !stored.startsWith(fingerprint + SEPARATOR)) {
+                log.warn("Idempotency key {} reused for a different request", key);
+                throw new AccountException(ErrorCode.IDEMPOTENCY_KEY_REUSED);
+            }
+            String payload = stored == null ? null : stored.substring(fingerprint.length() + 1);
+            if (OUTCOME_UNKNOWN.equals(payload)) {
+                throw new AccountException(ErrorCode.IDEMPOTENT_REQUEST_OUTCOME_UNKNOWN);
+            }
+            if (payload != null && !IN_PROGRESS.equals(payload)) {
+                log.info("Replaying response for idempotency key {}", key);
+                return read(payload, responseType);
+            }
+            // still in progress, or released by a failed first request and free to take over
+            if (payload != null) {
+                if (System.nanoTime() - deadline >= 0) {
+                    throw new AccountException(ErrorCode.IDEMPOTENT_REQUEST_IN_PROGRESS);
+                }
+                sleep();
+            }
+        }
+    }
+
+    private <T> T runFirst(String key, String fingerprint, Supplier<T> action) {
+        T response;
+        try {
+            response = action.get();
+        } catch (AccountException e) {
+            idempotencyStore.delete(key);
+            throw e;
+        } catch (RuntimeException e) {
+            storeOutcomeUnknown(key, fingerprint);
+            throw e;
+        }
+        try {
+            idempotencyStore.put(key, fingerprint + SEPARATOR + objectMapper.writeValueAsString(response), ttlMillis, TimeUnit.MILLISECONDS);
+        } catch (JsonProcessingException | RuntimeException e) {
+            // the action has been applied, the marker keeps rejecting duplicates until it expires
+            log.error("Failed to store response for idempotency key {}", key, e);
+        }
+        return response;
+    }
+
+    private void storeOutcomeUnknown(String key, String fingerprint) {
+        try {
+            idempotencyStore.put(key, fingerprint + SEPARATOR + OUTCOME_UNKNOWN, ttlMillis, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            // the in-progress marker still rejects duplicates until it expires
+            log.error("Failed to store the failure for idempotency key {}", key, e);
+        }
+    }
+
+    static String inProgress(String fingerprint) {
+        return fingerprint + SEPARATOR + IN_PROGRESS;
+    }
+
+    String fingerprint(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot fingerprint the idempotent request", e);
+        }
+    }
+
+    private <T> T read(String stored, Class<T> responseType) {
+        try {
+            return objectMapper.readValue(stored, responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored idempotent response cannot be read", e);
+        }
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(pollIntervalMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ErrorCode.IDEMPOTENT_REQUEST_IN_PROGRESS);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.account.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * key value store with per entry ttl, shared by every node when backed by redis
+ */
+public interface IdempotencyStore {
+    /**
+     * @return false if the key already holds a value
+     */
+    boolean putIfAbsent(String key, String value, long ttl, TimeUnit unit);
+
+    String get(String key);
+
+    void put(String key, String value, long ttl, TimeUnit unit);
+
+    void delete(String key);
+}
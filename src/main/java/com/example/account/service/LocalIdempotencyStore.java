@@ -0,0 +1,62 @@
+package com.example.account.service;
+
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * in memory store for tests and single node deployments, expired entries are ignored on read and purged periodically
+ */
+@Service
+@ConditionalOnProperty(name = "account.idempotency.store", havingValue = "local")
+public class LocalIdempotencyStore implements IdempotencyStore {
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean putIfAbsent(String key, String value, long ttl, TimeUnit unit) {
+        Entry entry = new Entry(value, expiresAt(ttl, unit));
+        long now = System.nanoTime();
+        return entries.compute(key, (k, current) -> current == null || current.isExpired(now) ? entry : current) == entry;
+    }
+
+    @Override
+    public String get(String key) {
+        Entry entry = entries.get(key);
+        return entry == null || entry.isExpired(System.nanoTime()) ? null : entry.value;
+    }
+
+    @Override
+    public void put(String key, String value, long ttl, TimeUnit unit) {
+        entries.put(key, new Entry(value, expiresAt(ttl, unit)));
+    }
+
+    @Override
+    public void delete(String key) {
+        entries.remove(key);
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void purgeExpired() {
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> entry.isExpired(now));
+    }
+
+    private static long expiresAt(long ttl, TimeUnit unit) {
+        return System.nanoTime() + unit.toNanos(ttl);
+    }
+
+    @AllArgsConstructor
+    private static class Entry {
+        private final String value;
+        private final long expiresAt;
+
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
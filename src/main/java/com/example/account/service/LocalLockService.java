@@ -0,0 +1,51 @@
+package com.example.account.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * in-JVM locks for single node deployments
+ * accounts are hashed onto a fixed array of stripes, so two accounts only wait
+ * on each other when they share a stripe
+ * the lease time is ignored, the lock aspect always unlocks in finally
+ */
+@Service
+@ConditionalOnProperty(name = "account.lock.mode", havingValue = "local")
+public class LocalLockService implements LockService {
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    public LocalLockService(@Value("${account.lock.stripes:1024}") int stripeCount) {
+        int size = 1;
+        while (size < stripeCount) {
+            size <<= 1;
+        }
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    @Override
+    public boolean tryLock(String accountNumber, long waitTime, long leaseTime, TimeUnit unit) throws InterruptedException {
+        return stripeFor(accountNumber).tryLock(waitTime, unit);
+    }
+
+    @Override
+    public void unlock(String accountNumber) {
+        ReentrantLock lock = stripeFor(accountNumber);
+        if (lock.isHeldByCurrentThread()) {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock stripeFor(String accountNumber) {
+        int hash = accountNumber.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & mask];
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.account.service;
+
+import java.util.concurrent.TimeUnit;
+
+public interface LockService {
+    boolean tryLock(String accountNumber, long waitTime, long leaseTime, TimeUnit unit) throws InterruptedException;
+
+    void unlock(String accountNumber);
+}
@@ -0,0 +1,22 @@
+package com.example.account.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * lock-free mode, concurrent updates are resolved by the Account version check and retried
+ */
+@Service
+@ConditionalOnProperty(name = "account.lock.mode", havingValue = "none")
+public class NoLockService implements LockService {
+    @Override
+    public boolean tryLock(String accountNumber, long waitTime, long leaseTime, TimeUnit unit) {
+        return true;
+    }
+
+    @Override
+    public void unlock(String accountNumber) {
+    }
+}
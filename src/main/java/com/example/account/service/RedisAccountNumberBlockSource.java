@@ -0,0 +1,46 @@
+package com.example.account.service;
+
+import com.example.account.repository.AccountRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RedissonClient;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+import static com.example.account.service.BlockAccountNumberAllocator.FIRST_ACCOUNT_NUMBER;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "account.number.source", havingValue = "redis", matchIfMissing = true)
+public class RedisAccountNumberBlockSource implements AccountNumberBlockSource {
+    private static final String COUNTER_KEY = "ACCOUNT_NUMBER_COUNTER";
+
+    private final RedissonClient redissonClient;
+    private final AccountRepository accountRepository;
+
+    /**
+     * a fresh counter must not hand out numbers that are already in the table
+     */
+    @PostConstruct
+    public void initCounter() {
+        long next = accountRepository.findMaxAccountNumber()
+                .map(accountNumber -> Long.parseLong(accountNumber) - FIRST_ACCOUNT_NUMBER + 1)
+                .orElse(0L);
+        if (next > 0 && counter().compareAndSet(0, next)) {
+            log.info("Account number counter initialized to {}", next);
+        }
+    }
+
+    @Override
+    public long reserve(int size) {
+        return counter().addAndGet(size) - size;
+    }
+
+    private RAtomicLong counter() {
+        return redissonClient.getAtomicLong(COUNTER_KEY);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.account.service;
+
+import lombok.RequiredArgsConstructor;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "account.idempotency.store", havingValue = "redis", matchIfMissing = true)
+public class RedisIdempotencyStore implements IdempotencyStore {
+    private final RedissonClient redissonClient;
+
+    @Override
+    public boolean putIfAbsent(String key, String value, long ttl, TimeUnit unit) {
+        return bucket(key).trySet(value, ttl, unit);
+    }
+
+    @Override
+    public String get(String key) {
+        return bucket(key).get();
+    }
+
+    @Override
+    public void put(String key, String value, long ttl, TimeUnit unit) {
+        bucket(key).set(value, ttl, unit);
+    }
+
+    @Override
+    public void delete(String key) {
+        bucket(key).delete();
+    }
+
+    private RBucket<String> bucket(String key) {
+        return redissonClient.getBucket("IDEMPOTENCY:" + key, StringCodec.INSTANCE);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.account.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RedissonClient;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "account.lock.mode", havingValue = "redis", matchIfMissing = true)
+public class RedisLockService implements LockService {
+    private final RedissonClient redissonClient;
+
+    @Override
+    public boolean tryLock(String accountNumber, long waitTime, long leaseTime, TimeUnit unit) throws InterruptedException {
+        return redissonClient.getLock(getLockKey(accountNumber)).tryLock(waitTime, leaseTime, unit);
+    }
+
+    @Override
+    public void unlock(String accountNumber) {
+        try {
+            redissonClient.getLock(getLockKey(accountNumber)).unlock();
+        } catch (IllegalMonitorStateException e) {
+            log.error("Lock lease expired before unlock. accountNumber : {}", accountNumber);
+        }
+    }
+
+    private static String getLockKey(String accountNumber) {
+        return "ACLK:" + accountNumber;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.account.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * each sequence value is the start of a block, so the sequence increment must equal the block size
+ */
+@Component
+@ConditionalOnProperty(name = "account.number.source", havingValue = "sequence")
+public class SequenceAccountNumberBlockSource implements AccountNumberBlockSource {
+    private final JdbcTemplate jdbcTemplate;
+    private final int blockSize;
+
+    public SequenceAccountNumberBlockSource(JdbcTemplate jdbcTemplate,
+                                            @Value("${account.number.block-size:100}") int blockSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * the sequence is created and seeded by flyway, see V7__create_account_number_block_sequence.sql
+     */
+    @PostConstruct
+    public void checkSequence() {
+        Long increment = jdbcTemplate.queryForObject(
+                "select increment from information_schema.sequences where sequence_name = 'ACCOUNT_NUMBER_BLOCK_SEQ'",
+                Long.class);
+        if (increment == null || increment != blockSize) {
+            throw new IllegalStateException("account_number_block_seq increments by " + increment
+                    + ", account.number.block-size is " + blockSize);
+        }
+    }
+
+    @Override
+    public long reserve(int size) {
+        if (size != blockSize) {
+            throw new IllegalArgumentException("sequence blocks are fixed to " + blockSize + " numbers");
+        }
+        Long start = jdbcTemplate.queryForObject("select next value for account_number_block_seq", Long.class);
+        return start - 1;
+    }
+
+    @Override
+    public boolean isFixedSize() {
+        return true;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.account.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 64 bit id : [41 bit millis since 2022-01-01][10 bit node id][12 bit sequence]
+ * rendered as 13 fixed-width crockford base32 characters, so string order is time order
+ *
+ * time and sequence share one atomic word, a sequence overflow or a clock moving backwards
+ * borrows from the next millisecond instead of waiting, ids stay unique and increasing per node
+ */
+@Service
+public class SnowflakeTransactionIdGenerator implements TransactionIdGenerator {
+    static final long EPOCH = Instant.parse("2022-01-01T00:00:00Z").toEpochMilli();
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final int ID_LENGTH = 13;
+
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[ID_LENGTH]);
+
+    private final long nodeBits;
+    private final LongSupplier clock;
+    // (millis since epoch << SEQUENCE_BITS) | sequence of the last issued id
+    private final AtomicLong lastState = new AtomicLong();
+
+    public SnowflakeTransactionIdGenerator(@Value("${account.transaction-id.node-id:0}") long nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    SnowflakeTransactionIdGenerator(long nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("node id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeBits = nodeId << SEQUENCE_BITS;
+        this.clock = clock;
+    }
+
+    @Override
+    public String generate() {
+        return format(nextId());
+    }
+
+    public long nextId() {
+        long now = (clock.getAsLong() - EPOCH) << SEQUENCE_BITS;
+        long previous;
+        long next;
+        do {
+            previous = lastState.get();
+            next = now > previous ? now : previous + 1;
+        } while (!lastState.compareAndSet(previous, next));
+
+        long millis = next >>> SEQUENCE_BITS;
+        long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+        return (millis << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | sequence;
+    }
+
+    static String format(long id) {
+        char[] buffer = BUFFER.get();
+        for (int i = ID_LENGTH - 1; i >= 0; i--) {
+            buffer[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(buffer);
+    }
+}
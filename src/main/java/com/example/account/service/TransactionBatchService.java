@@ -0,0 +1,76 @@
+package com.example.account.service;
+
+import com.example.account.aop.ServiceMetrics;
+import com.example.account.dto.UseBalance;
+import com.example.account.dto.UseBalanceBatch;
+import com.example.account.exception.AccountException;
+import com.example.account.ledger.LedgerEngine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static com.example.account.type.TransactionType.USE;
+
+@Slf4j
+@ServiceMetrics
+@Service
+@RequiredArgsConstructor
+public class TransactionBatchService {
+    private final TransactionService transactionService;
+    private final FailedTransactionRecorder failedTransactionRecorder;
+    private final LedgerEngine ledgerEngine;
+
+    /**
+     * group the items by account so every account is locked and flushed once
+     * results keep the order of the request
+     */
+    @ServiceMetrics(type = USE)
+    public List<UseBalanceBatch.Item> useBalance(List<UseBalance.Request> requests) {
+        Map<String, List<Integer>> indexesByAccount = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            indexesByAccount.computeIfAbsent(requests.get(i).getAccountNumber(), accountNumber -> new ArrayList<>()).add(i);
+        }
+
+        UseBalanceBatch.Item[] items = new UseBalanceBatch.Item[requests.size()];
+        indexesByAccount.forEach((accountNumber, indexes) -> {
+            List<UseBalance.Request> group = indexes.stream().map(requests::get).collect(Collectors.toList());
+            List<UseBalanceBatch.Item> groupItems = useBalanceForAccount(accountNumber, group);
+            for (int i = 0; i < indexes.size(); i++) {
+                items[indexes.get(i)] = groupItems.get(i);
+            }
+        });
+        return Arrays.asList(items);
+    }
+
+    private List<UseBalanceBatch.Item> useBalanceForAccount(String accountNumber, List<UseBalance.Request> group) {
+        try {
+            List<UseBalanceBatch.Item> items = transactionService.useBalanceBatch(accountNumber, group);
+            if (ledgerEngine.owns(accountNumber)) {
+                // the ledger writes no F rows of its own, the database path saves them with the batch
+                saveFailedLedgerItems(accountNumber, group, items);
+            }
+            return items;
+        } catch (AccountException e) {
+            log.error("Failed to use balance.");
+            saveFailedUseTransactions(accountNumber, group);
+            return Collections.nCopies(group.size(), UseBalanceBatch.Item.failure(e.getErrorCode()));
+        }
+    }
+
+    private void saveFailedLedgerItems(String accountNumber, List<UseBalance.Request> group, List<UseBalanceBatch.Item> items) {
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i).getErrorCode() != null) {
+                failedTransactionRecorder.record(USE, accountNumber, group.get(i).getAmount());
+            }
+        }
+    }
+
+    private void saveFailedUseTransactions(String accountNumber, List<UseBalance.Request> group) {
+        for (UseBalance.Request request : group) {
+            failedTransactionRecorder.record(USE, accountNumber, request.getAmount());
+        }
+    }
+}
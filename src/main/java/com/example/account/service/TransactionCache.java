@@ -0,0 +1,134 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RMapCache;
+import org.redisson.api.RedissonClient;
+import org.redisson.codec.JsonJacksonCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+
+/**
+ * transaction records are never modified once written, so entries need no ttl or invalidation
+ * local tier is size bounded, the optional redis tier is shared by every node and bounded by lru eviction
+ */
+@Slf4j
+@Service
+public class TransactionCache {
+    private static final String REDIS_CACHE_NAME = "TRANSACTION_CACHE";
+
+    private final Cache<String, TransactionDto> localTier;
+    private final RMapCache<String, TransactionDto> redisTier;
+
+    private final Counter localHits;
+    private final Counter redisHits;
+    private final Counter misses;
+
+    public TransactionCache(RedissonClient redissonClient,
+                            ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry,
+                            @Value("${account.transaction-cache.maximum-size:100000}") long maximumSize,
+                            @Value("${account.transaction-cache.redis.enabled:false}") boolean redisEnabled,
+                            @Value("${account.transaction-cache.redis.maximum-size:1000000}") int redisMaximumSize) {
+        this.localTier = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        if (redisEnabled) {
+            this.redisTier = redissonClient.getMapCache(REDIS_CACHE_NAME, new JsonJacksonCodec(objectMapper.copy()));
+            this.redisTier.setMaxSize(redisMaximumSize);
+        } else {
+            this.redisTier = null;
+        }
+
+        this.localHits = requests(meterRegistry, "hit", "local");
+        this.redisHits = requests(meterRegistry, "hit", "redis");
+        this.misses = requests(meterRegistry, "miss", "none");
+        Gauge.builder("account.transaction.cache.hit.ratio", this, TransactionCache::hitRatio)
+                .register(meterRegistry);
+        Gauge.builder("account.transaction.cache.miss.ratio", this, cache -> cache.requestCount() == 0 ? 0 : 1 - cache.hitRatio())
+                .register(meterRegistry);
+        FunctionCounter.builder("account.transaction.cache.evictions", localTier, cache -> cache.stats().evictionCount())
+                .register(meterRegistry);
+        Gauge.builder("account.transaction.cache.size", localTier, Cache::estimatedSize)
+                .register(meterRegistry);
+    }
+
+    public Optional<TransactionDto> get(String transactionId) {
+        TransactionDto transactionDto = localTier.getIfPresent(transactionId);
+        if (transactionDto != null) {
+            localHits.increment();
+            return Optional.of(transactionDto);
+        }
+        if (redisTier != null) {
+            transactionDto = readRedis(transactionId);
+            if (transactionDto != null) {
+                redisHits.increment();
+                localTier.put(transactionId, transactionDto);
+                return Optional.of(transactionDto);
+            }
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    /**
+     * inside a database transaction the entry is only published once that transaction commits
+     */
+    public void put(TransactionDto transactionDto) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    store(transactionDto);
+                }
+            });
+            return;
+        }
+        store(transactionDto);
+    }
+
+    private void store(TransactionDto transactionDto) {
+        localTier.put(transactionDto.getTranscationId(), transactionDto);
+        if (redisTier != null) {
+            redisTier.fastPutAsync(transactionDto.getTranscationId(), transactionDto);
+        }
+    }
+
+    private TransactionDto readRedis(String transactionId) {
+        try {
+            return redisTier.get(transactionId);
+        } catch (RuntimeException e) {
+            // the shared tier is an optimisation, fall back to the database
+            log.warn("Transaction cache read from redis failed. transactionId : {}", transactionId, e);
+            return null;
+        }
+    }
+
+    private double hitRatio() {
+        double requests = requestCount();
+        return requests == 0 ? 0 : (localHits.count() + redisHits.count()) / requests;
+    }
+
+    private double requestCount() {
+        return localHits.count() + redisHits.count() + misses.count();
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result, String tier) {
+        return Counter.builder("account.transaction.cache.requests")
+                .tag("result", result)
+                .tag("tier", tier)
+                .register(meterRegistry);
+    }
+}
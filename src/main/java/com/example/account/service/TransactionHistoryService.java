@@ -0,0 +1,129 @@
+package com.example.account.service;
+
+import com.example.account.aop.ServiceMetrics;
+import com.example.account.domain.Account;
+import com.example.account.domain.ArchivedTransaction;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionHistory;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.ArchivedTransactionRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * pages are keyset paginated on (transactedAt, id) descending, the cursor is the last row of the previous page
+ * so every page is an index range scan of the same cost
+ *
+ * the archiver moves the oldest rows first, so transaction_archive only holds rows older than any left in
+ * the transaction table and the history continues there once the transaction table runs out
+ */
+@ServiceMetrics
+@Service
+@RequiredArgsConstructor
+public class TransactionHistoryService {
+    public static final int MAX_PAGE_SIZE = 100;
+    private static final String CURSOR_SEPARATOR = "|";
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
+    private final EntityManager entityManager;
+
+    @Transactional
+    public TransactionHistory.Page getTransactions(String accountNumber, String cursor, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+        Account account = accountRepository.findByAccountNumber(accountNumber).orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+
+        // one extra row tells whether there is a next page
+        PageRequest limit = PageRequest.of(0, size + 1);
+        Transaction last = cursor == null ? null : decodeCursor(cursor);
+        List<Transaction> transactions = new ArrayList<>(last == null
+                ? transactionRepository.findLatestByAccountId(account.getId(), limit)
+                : transactionRepository.findByAccountIdBefore(account.getId(), last.getTransactedAt(), last.getId(), limit));
+        if (transactions.size() <= size) {
+            // continues after the last row read, a row the archiver moves in between is not read twice
+            Transaction from = transactions.isEmpty() ? last : transactions.get(transactions.size() - 1);
+            PageRequest rest = PageRequest.of(0, size + 1 - transactions.size());
+            List<ArchivedTransaction> archived = from == null
+                    ? archivedTransactionRepository.findLatestByAccountId(account.getId(), rest)
+                    : archivedTransactionRepository.findByAccountIdBefore(account.getId(), from.getTransactedAt(), from.getId(), rest);
+            for (ArchivedTransaction archivedTransaction : archived) {
+                transactions.add(archivedTransaction.toTransaction());
+            }
+        }
+
+        String nextCursor = null;
+        if (transactions.size() > size) {
+            transactions = transactions.subList(0, size);
+            nextCursor = encodeCursor(transactions.get(size - 1));
+        }
+        return new TransactionHistory.Page(
+                transactions.stream().map(TransactionDto::fromEntity).collect(Collectors.toList()),
+                nextCursor);
+    }
+
+    public Long getAccountId(String accountNumber) {
+        return accountRepository.findByAccountNumber(accountNumber)
+                .map(Account::getId)
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+    }
+
+    /**
+     * rows are read through a jdbc cursor and detached once consumed, so the heap holds one fetch at a time
+     * the archived part of the window comes first, both tables are read in one snapshot
+     * so a row the archiver moves during the export is neither missed nor written twice
+     */
+    @Transactional(isolation = Isolation.REPEATABLE_READ)
+    public void exportTransactions(Long accountId, LocalDateTime from, LocalDateTime to, Consumer<TransactionDto> consumer) {
+        try (Stream<ArchivedTransaction> archived = archivedTransactionRepository.streamByAccountId(accountId, from, to)) {
+            archived.forEach(archivedTransaction -> {
+                consumer.accept(TransactionDto.fromEntity(archivedTransaction.toTransaction()));
+                entityManager.detach(archivedTransaction);
+            });
+        }
+        try (Stream<Transaction> transactions = transactionRepository.streamByAccountId(accountId, from, to)) {
+            transactions.forEach(transaction -> {
+                consumer.accept(TransactionDto.fromEntity(transaction));
+                entityManager.detach(transaction);
+            });
+        }
+    }
+
+    static String encodeCursor(Transaction transaction) {
+        String cursor = transaction.getTransactedAt() + CURSOR_SEPARATOR + transaction.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Transaction decodeCursor(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.lastIndexOf(CURSOR_SEPARATOR);
+            return Transaction.builder()
+                    .transactedAt(LocalDateTime.parse(decoded.substring(0, separator)))
+                    .id(Long.parseLong(decoded.substring(separator + 1)))
+                    .build();
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * balance rules shared by the servlet and the reactive stacks
+ * they only look at plain values so either stack can feed them from its own rows
+ */
+public final class TransactionRules {
+
+    private TransactionRules() {
+    }
+
+    public static void validateUserBalance(Long userId, Long accountUserId, AccountStatus accountStatus, Long balance, Long amount) {
+        if (!Objects.equals(userId, accountUserId)) {
+            throw new AccountException(ErrorCode.USER_ACCOUNT_UNMATCH);
+        }
+        if (accountStatus != AccountStatus.IN_USE) {
+            throw new AccountException(ErrorCode.ACCOUNT_ALREDAY_UNREGISTERED);
+        }
+        if (balance < amount) {
+            throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        }
+    }
+
+    public static void validateCancelBalance(Long transactionAccountId, Long accountId, Long transactionAmount, Long amount, LocalDateTime transactedAt) {
+        if (!Objects.equals(transactionAccountId, accountId)) {
+            throw new AccountException(ErrorCode.TRANSACTION_ACCOUNT_UN_MATCH);
+        }
+        if (!Objects.equals(transactionAmount, amount)) {
+            throw new AccountException(ErrorCode.CANCEL_MUST_FULLY);
+        }
+        if (transactedAt.isBefore(LocalDateTime.now().minusYears(1L))) {
+            throw new AccountException(ErrorCode.TOO_OLD_ORDER_TO_CANCEL);
+        }
+    }
+}
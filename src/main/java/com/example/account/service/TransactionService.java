@@ -1,112 +1,262 @@
 package com.example.account.service;
 
+import com.example.account.aop.AccountLock;
+import com.example.account.aop.OptimisticLockRetry;
+import com.example.account.aop.ServiceMetrics;
+import com.example.account.datasource.ReadYourWrites;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
+import com.example.account.domain.ArchivedTransaction;
 import com.example.account.domain.Transaction;
+import com.example.account.dto.FailedTransaction;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.UseBalance;
+import com.example.account.dto.UseBalanceBatch;
 import com.example.account.exception.AccountException;
+import com.example.account.journal.TransactionJournal;
+import com.example.account.ledger.LedgerEngine;
+import com.example.account.ledger.LedgerResult;
 import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.ArchivedTransactionRepository;
 import com.example.account.repository.TransactionRepository;
-import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
 import com.example.account.type.TransactionResultType;
 import com.example.account.type.TransactionType;
 import lombok.RequiredArgsConstructor;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
 import javax.transaction.Transactional;
 import java.time.LocalDateTime;
-import java.util.Objects;
-import java.util.UUID;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static com.example.account.type.TransactionResultType.F;
 import static com.example.account.type.TransactionResultType.S;
 import static com.example.account.type.TransactionType.CANCEL;
 import static com.example.account.type.TransactionType.USE;
 
+@ServiceMetrics
 @Service
 @RequiredArgsConstructor
 public class TransactionService {
     private final TransactionRepository transactionRepository;
     private final AccountUserRepository accountUserRepository;
     private final AccountRepository accountRepository;
+    private final TransactionJournal transactionJournal;
+    private final TransactionCache transactionCache;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final AccountSummaryCache accountSummaryCache;
+    private final LedgerEngine ledgerEngine;
+    private final ReadYourWrites readYourWrites;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
 
+    @ServiceMetrics(type = USE)
+    @AccountLock(key = "#accountNumber")
+    @OptimisticLockRetry
     @Transactional
     public TransactionDto useBalance(Long userId, String accountNumber, Long amount) {
-        AccountUser user = accountUserRepository.findById(userId).orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
-        Account account = accountRepository.findByAccountNumber(accountNumber).orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        if (ledgerEngine.owns(accountNumber)) {
+            return applyLedgerResult(ledgerEngine.useBalance(userId, accountNumber, amount));
+        }
+        if (accountRepository.debitBalance(accountNumber, userId, amount, LocalDateTime.now()) == 0) {
+            // the conditional update matched nothing, load the rows only to report why
+            AccountUser user = accountUserRepository.findById(userId).orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
+            Account account = accountRepository.findByAccountNumber(accountNumber).orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
 
-        validateUserBalance(user, account, amount);
-        account.useBalance(amount);
+            validateUserBalance(user, account, amount);
+            throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        }
+        Account account = accountRepository.findByAccountNumber(accountNumber).orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        accountSummaryCache.update(userId, account);
+        readYourWrites.markWritten(userId);
 
         return TransactionDto.fromEntity(saveAndGetTransaction(USE,S, account, amount));
     }
 
-    private void validateUserBalance(AccountUser user, Account account, Long amount) {
-        if (!Objects.equals(user.getId(), account.getAccountUser().getId())) {
-            throw new AccountException(ErrorCode.USER_ACCOUNT_UNMATCH);
+    /**
+     * apply several debits on one account under one lock and one flush
+     * failed items are recorded as F transactions in the same batch insert
+     * the items are validated against a running balance and their sum is applied with the same conditional
+     * update as a single debit, one statement for the batch instead of one per item
+     */
+    @ServiceMetrics(type = USE)
+    @AccountLock(key = "#accountNumber")
+    @OptimisticLockRetry
+    @Transactional
+    public List<UseBalanceBatch.Item> useBalanceBatch(String accountNumber, List<UseBalance.Request> requests) {
+        if (ledgerEngine.owns(accountNumber)) {
+            return useLedgerBalanceBatch(accountNumber, requests);
+        }
+        Account account = accountRepository.findByAccountNumber(accountNumber).orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        Set<Long> userIds = requests.stream().map(UseBalance.Request::getUserId).collect(Collectors.toSet());
+        Map<Long, AccountUser> users = accountUserRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(AccountUser::getId, Function.identity()));
+
+        Long ownerId = account.getAccountUser().getId();
+        long balance = account.getBalance();
+        long debited = 0;
+        List<Transaction> transactions = new ArrayList<>(requests.size());
+        List<UseBalanceBatch.Item> items = new ArrayList<>(requests.size());
+        for (UseBalance.Request request : requests) {
+            try {
+                AccountUser user = Optional.ofNullable(users.get(request.getUserId())).orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
+                TransactionRules.validateUserBalance(user.getId(), ownerId, account.getAccountStatus(), balance, request.getAmount());
+                balance -= request.getAmount();
+                debited += request.getAmount();
+
+                Transaction transaction = buildTransaction(USE, S, account, request.getAmount());
+                transaction.setBalanceSnapshot(balance);
+                transactions.add(transaction);
+                items.add(UseBalanceBatch.Item.success(TransactionDto.fromEntity(transaction)));
+            } catch (AccountException e) {
+                Transaction transaction = buildTransaction(USE, F, account, request.getAmount());
+                transaction.setBalanceSnapshot(balance);
+                transactions.add(transaction);
+                items.add(UseBalanceBatch.Item.failure(e.getErrorCode()));
+            }
         }
-        if (account.getAccountStatus() != AccountStatus.IN_USE) {
-            throw new AccountException(ErrorCode.ACCOUNT_ALREDAY_UNREGISTERED);
+        if (debited > 0) {
+            if (accountRepository.debitBalance(accountNumber, ownerId, debited, LocalDateTime.now()) == 0) {
+                // the account changed after it was read, validate the whole batch again against a fresh read
+                throw new ObjectOptimisticLockingFailureException(Account.class, account.getId());
+            }
+            account = accountRepository.findByAccountNumber(accountNumber).orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
         }
-        if (account.getBalance() < amount) {
-            throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        transactionRepository.saveAll(transactions);
+        accountSummaryCache.update(ownerId, account);
+        readYourWrites.markWritten(ownerId);
+
+        return items;
+    }
+
+    private List<UseBalanceBatch.Item> useLedgerBalanceBatch(String accountNumber, List<UseBalance.Request> requests) {
+        List<UseBalanceBatch.Item> items = new ArrayList<>(requests.size());
+        for (UseBalance.Request request : requests) {
+            try {
+                items.add(UseBalanceBatch.Item.success(applyLedgerResult(
+                        ledgerEngine.useBalance(request.getUserId(), accountNumber, request.getAmount()))));
+            } catch (AccountException e) {
+                items.add(UseBalanceBatch.Item.failure(e.getErrorCode()));
+            }
         }
+        return items;
+    }
+
+    private TransactionDto applyLedgerResult(LedgerResult result) {
+        accountSummaryCache.update(result.getAccount().getUserId(), result.getAccount().toAccount());
+        readYourWrites.markWritten(result.getAccount().getUserId());
+        transactionCache.put(result.getTransaction());
+        return result.getTransaction();
+    }
+
+    private void validateUserBalance(AccountUser user, Account account, Long amount) {
+        TransactionRules.validateUserBalance(user.getId(), account.getAccountUser().getId(),
+                account.getAccountStatus(), account.getBalance(), amount);
     }
 
 
+    /**
+     * batch write of queued failure records, failures on unknown accounts have nothing to point to and are skipped
+     * the snapshot is the balance at write time, held by the ledger for the accounts it owns
+     */
     @Transactional
-    public void saveFailedUseTransaction(String accountNumber, Long amount) {
-        Account account = accountRepository.findByAccountNumber(accountNumber).orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
-        TransactionDto.fromEntity(saveAndGetTransaction(USE, F, account, amount));
+    public void saveFailedTransactions(List<FailedTransaction> failedTransactions) {
+        Set<String> accountNumbers = failedTransactions.stream().map(FailedTransaction::getAccountNumber).collect(Collectors.toSet());
+        Map<String, Account> accounts = accountRepository.findByAccountNumberIn(accountNumbers).stream()
+                .collect(Collectors.toMap(Account::getAccountNumber, Function.identity()));
 
+        List<Transaction> transactions = new ArrayList<>(failedTransactions.size());
+        for (FailedTransaction failedTransaction : failedTransactions) {
+            Account account = accounts.get(failedTransaction.getAccountNumber());
+            if (account == null) {
+                continue;
+            }
+            Transaction transaction = buildTransaction(failedTransaction.getTransactionType(), F, account, failedTransaction.getAmount());
+            ledgerEngine.balance(account.getAccountNumber()).ifPresent(transaction::setBalanceSnapshot);
+            transaction.setTransactedAt(failedTransaction.getFailedAt());
+            transactions.add(transaction);
+        }
+        transactionRepository.saveAll(transactions);
     }
 
     private Transaction saveAndGetTransaction(TransactionType transactionType,TransactionResultType transactionResultType, Account account, Long amount) {
-        return transactionRepository.save(
-                Transaction.builder()
-                        .transactionType(transactionType)
-                        .transactionResultType(transactionResultType)
-                        .account(account)
-                        .amount(amount)
-                        .balanceSnapshot(account.getBalance())
-                        .transcationId(UUID.randomUUID().toString().replace("-", ""))
-                        .transactedAt(LocalDateTime.now())
-                        .build()
-        );
+        Transaction transaction = buildTransaction(transactionType, transactionResultType, account, amount);
+        if (!(transactionResultType == S && transactionJournal.isEnabled() && transactionJournal.append(transaction))) {
+            transaction = transactionRepository.save(transaction);
+        }
+        transactionCache.put(TransactionDto.fromEntity(transaction));
+        return transaction;
+    }
+
+    /**
+     * journaled and ledger records are visible before they are written to the table,
+     * transactions past the archive horizon are only in the archive table
+     */
+    private Optional<Transaction> findTransaction(String transactionId) {
+        Optional<Transaction> pending = transactionJournal.findPending(transactionId);
+        if (pending.isPresent()) {
+            return pending;
+        }
+        pending = ledgerEngine.findPending(transactionId);
+        if (pending.isPresent()) {
+            return pending;
+        }
+        Optional<Transaction> transaction = transactionRepository.findByTranscationId(transactionId);
+        return transaction.isPresent() ? transaction
+                : archivedTransactionRepository.findByTranscationId(transactionId).map(ArchivedTransaction::toTransaction);
     }
 
+    private Transaction buildTransaction(TransactionType transactionType, TransactionResultType transactionResultType, Account account, Long amount) {
+        return Transaction.builder()
+                .transactionType(transactionType)
+                .transactionResultType(transactionResultType)
+                .account(account)
+                .amount(amount)
+                .balanceSnapshot(account.getBalance())
+                .transcationId(transactionIdGenerator.generate())
+                .transactedAt(LocalDateTime.now())
+                .build();
+    }
+
+    @ServiceMetrics(type = CANCEL)
+    @AccountLock(key = "#accountNumber")
+    @OptimisticLockRetry
+    @Transactional
     public TransactionDto cancelBalance(String transactionId, String accountNumber, Long amount) {
-        Transaction transaction = transactionRepository.findByTranscationId(transactionId).orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND));
+        Transaction transaction = findTransaction(transactionId).orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND));
+        if (ledgerEngine.owns(accountNumber)) {
+            return applyLedgerResult(ledgerEngine.cancelBalance(transaction, accountNumber, amount));
+        }
         Account account = accountRepository.findByAccountNumber(accountNumber).orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
         validateCancelBalance(transaction, account, amount);
         account.cancelBalance(amount);
+        accountSummaryCache.update(account.getAccountUser().getId(), account);
+        readYourWrites.markWritten(account.getAccountUser().getId());
 
         return TransactionDto.fromEntity(saveAndGetTransaction(CANCEL,S, account, amount));
 
     }
 
     private void validateCancelBalance(Transaction transaction, Account account, Long amount) {
-        if (!Objects.equals(transaction.getAccount().getId(), account.getId())) {
-            throw new AccountException(ErrorCode.TRANSACTION_ACCOUNT_UN_MATCH);
-        }
-        if (!Objects.equals(transaction.getAmount(), amount)) {
-            throw new AccountException(ErrorCode.CANCEL_MUST_FULLY);
-        }
-        if (transaction.getTransactedAt().isBefore(LocalDateTime.now().minusYears(1L))) {
-            throw new AccountException(ErrorCode.USER_NOT_FOUND.TOO_OLD_ORDER_TO_CANCEL);
-        }
-    }
-
-    public void saveFailedCancelTransaction(String accountNumber, Long amount) {
-        Account account = accountRepository.findByAccountNumber(accountNumber).orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
-        TransactionDto.fromEntity(saveAndGetTransaction(CANCEL, F, account, amount));
-
+        TransactionRules.validateCancelBalance(transaction.getAccount().getId(), account.getId(),
+                transaction.getAmount(), amount, transaction.getTransactedAt());
     }
 
+    /**
+     * the table lookup runs in the read-only transaction of the repository, on the replica when one is configured
+     */
     public TransactionDto queryTransaction(String transactionId) {
-        return TransactionDto.fromEntity(transactionRepository.findByTranscationId(transactionId).orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND)));
+        Optional<TransactionDto> cached = transactionCache.get(transactionId);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        TransactionDto transactionDto = TransactionDto.fromEntity(readYourWrites.readOrRetryOnPrimary(() -> findTransaction(transactionId))
+                .orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND)));
+        transactionCache.put(transactionDto);
+        return transactionDto;
 
     }
 }
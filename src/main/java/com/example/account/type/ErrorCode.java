@@ -18,6 +18,14 @@ public enum ErrorCode {
     TRANSACTION_ACCOUNT_UN_MATCH("THE ACCOUNT DOES NOT HAVE TRANSACTION"),
     CANCEL_MUST_FULLY("THE AMOUNT OF CANCEL TRANSACTION DOES NOT MATCH WITH THE TRANSACTION AMOUNT"),
     TOO_OLD_ORDER_TO_CANCEL("TRANSACTION THAT IS PAST ONE YEAR CANNOT BE CANCELED"),
-    INVALID_REQUEST("REQUEST MUST BE VALID");
+    INVALID_REQUEST("REQUEST MUST BE VALID"),
+    ACCOUNT_TRANSACTION_LOCK("ACCOUNT IS IN USE BY ANOTHER TRANSACTION"),
+    CONCURRENT_TRANSACTION_CONFLICT("ACCOUNT WAS UPDATED BY A CONCURRENT TRANSACTION"),
+    IDEMPOTENT_REQUEST_IN_PROGRESS("REQUEST WITH THE SAME IDEMPOTENCY KEY IS STILL IN PROGRESS"),
+    IDEMPOTENCY_KEY_REUSED("IDEMPOTENCY KEY WAS ALREADY USED FOR A DIFFERENT REQUEST"),
+    IDEMPOTENT_REQUEST_OUTCOME_UNKNOWN("REQUEST WITH THE SAME IDEMPOTENCY KEY FAILED AND MAY HAVE BEEN APPLIED"),
+    LEDGER_UNAVAILABLE("LEDGER CANNOT ACCEPT THE TRANSACTION NOW"),
+    LEDGER_OWNED_ACCOUNT("ACCOUNT BALANCE IS HELD BY THE IN-MEMORY LEDGER"),
+    IMPORT_CHUNK_FAILED("THE CHUNK OF THIS LINE COULD NOT BE WRITTEN, NO LINE OF IT WAS IMPORTED");
     private final String description;
 }
@@ -0,0 +1,7 @@
+package com.example.account.type;
+
+public enum OverflowPolicy {
+    DROP_NEWEST,
+    DROP_OLDEST,
+    CALLER_RUNS
+}
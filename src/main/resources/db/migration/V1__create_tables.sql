@@ -0,0 +1,39 @@
+create sequence hibernate_sequence start with 1 increment by 1;
+
+create table account_user (
+    id bigint not null,
+    name varchar(255),
+    created_at timestamp,
+    updated_at timestamp,
+    primary key (id)
+);
+
+create table account (
+    id bigint not null,
+    account_user_id bigint,
+    account_number varchar(255),
+    account_status varchar(255),
+    balance bigint,
+    version bigint,
+    registered_at timestamp,
+    un_registered_at timestamp,
+    created_at timestamp,
+    updated_at timestamp,
+    primary key (id),
+    constraint fk_account_account_user foreign key (account_user_id) references account_user (id)
+);
+
+create table transaction (
+    id bigint not null,
+    transaction_type varchar(255),
+    transaction_result_type varchar(255),
+    account_id bigint,
+    amount bigint,
+    balance_snapshot bigint,
+    transcation_id varchar(255),
+    transacted_at timestamp,
+    created_at timestamp,
+    updated_at timestamp,
+    primary key (id),
+    constraint fk_transaction_account foreign key (account_id) references account (id)
+);
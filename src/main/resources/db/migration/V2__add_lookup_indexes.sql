@@ -0,0 +1,6 @@
+-- findByAccountNumber, debitBalance
+create unique index ux_account_account_number on account (account_number);
+-- countByAccountUser, findByAccountUser
+create index idx_account_account_user_status on account (account_user_id, account_status);
+-- findByTranscationId
+create unique index ux_transaction_transcation_id on transaction (transcation_id);
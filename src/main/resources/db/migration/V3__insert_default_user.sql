@@ -1 +1 @@
-insert into account_user(id, name, created_at, updated_at) values (1, 'hello world', now(), now());
\ No newline at end of file
+insert into account_user(id, name, created_at, updated_at) values (1, 'hello world', now(), now());
@@ -0,0 +1,2 @@
+-- keyset pagination and export of an account's transactions
+create index idx_transaction_account_transacted_at on transaction (account_id, transacted_at, id);
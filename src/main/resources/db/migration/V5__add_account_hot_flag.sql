@@ -0,0 +1,2 @@
+-- hot accounts have their balance owned by the in-memory ledger when account.ledger.enabled is set
+alter table account add column hot boolean default false not null;
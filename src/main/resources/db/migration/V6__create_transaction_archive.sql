@@ -0,0 +1,20 @@
+-- transactions moved out of the hot table once they are past the cancel window, ids are kept
+create table transaction_archive (
+    id bigint not null,
+    transaction_type varchar(255),
+    transaction_result_type varchar(255),
+    account_id bigint,
+    amount bigint,
+    balance_snapshot bigint,
+    transcation_id varchar(255),
+    transacted_at timestamp,
+    created_at timestamp,
+    updated_at timestamp,
+    archived_at timestamp,
+    primary key (id),
+    constraint fk_transaction_archive_account foreign key (account_id) references account (id)
+);
+-- findByTranscationId, the fallback of queryTransaction
+create unique index ux_transaction_archive_transcation_id on transaction_archive (transcation_id);
+-- the archiver picks the oldest rows of the hot table
+create index idx_transaction_transacted_at on transaction (transacted_at, id);
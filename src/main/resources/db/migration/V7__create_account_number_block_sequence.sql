@@ -0,0 +1,5 @@
+-- block starts for account.number.source=sequence, the increment must equal account.number.block-size
+-- seeded past the highest account number in the table, a value v hands out offsets v-1 .. v+98
+create sequence account_number_block_seq
+    start with (select coalesce(max(cast(account_number as bigint)) - 1000000000 + 2, 1) from account)
+    increment by 100;
@@ -0,0 +1,2 @@
+-- history pages and the export continue into the archive once they pass the archive horizon
+create index idx_transaction_archive_account_transacted_at on transaction_archive (account_id, transacted_at, id);
@@ -0,0 +1,21 @@
+package com.example.account.reactive;
+
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+
+/**
+ * webflux variant of the transaction api, run through ./gradlew bootRunReactive
+ * it reads reactive.yml instead of application.yml
+ */
+@SpringBootApplication
+public class ReactiveAccountApplication {
+
+    public static SpringApplicationBuilder builder() {
+        return new SpringApplicationBuilder(ReactiveAccountApplication.class)
+                .properties("spring.config.name=reactive");
+    }
+
+    public static void main(String[] args) {
+        builder().run(args);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.account.reactive;
+
+import com.example.account.config.AccountExceptionConfig;
+import com.example.account.config.LocalRedisConfig;
+import com.example.account.config.RedisRepositoryConfig;
+import com.example.account.exception.GlobalExceptionHandler;
+import com.example.account.service.SnowflakeTransactionIdGenerator;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.RedissonReactiveClient;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * redis, error bodies and transaction ids are the same beans the servlet application uses
+ */
+@Configuration
+@Import({LocalRedisConfig.class, RedisRepositoryConfig.class, AccountExceptionConfig.class,
+        GlobalExceptionHandler.class, SnowflakeTransactionIdGenerator.class})
+public class ReactiveConfig {
+
+    @Bean
+    public RedissonReactiveClient redissonReactiveClient(RedissonClient redissonClient) {
+        return redissonClient.reactive();
+    }
+}
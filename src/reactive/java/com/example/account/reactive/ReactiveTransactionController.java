@@ -0,0 +1,53 @@
+package com.example.account.reactive;
+
+import com.example.account.dto.CancelBalance;
+import com.example.account.dto.QueryTransactionResponse;
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+
+/**
+ * same request and response bodies as TransactionController
+ * Idempotency-Key, batch and history endpoints are only served by the servlet application
+ */
+@RestController
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveTransactionController {
+    private final ReactiveTransactionService transactionService;
+
+    @GetMapping("/transaction/{transactionId}")
+    public Mono<QueryTransactionResponse> queryTransaction(@PathVariable String transactionId) {
+        return transactionService.queryTransaction(transactionId).map(QueryTransactionResponse::from);
+    }
+
+    @PostMapping("/transaction/use")
+    public Mono<UseBalance.Response> useBalance(@Valid @RequestBody UseBalance.Request request) {
+        return transactionService.useBalance(request.getUserId(), request.getAccountNumber(), request.getAmount())
+                .map(UseBalance.Response::from)
+                .onErrorResume(AccountException.class, e -> {
+                    log.error("Failed to use balance.");
+                    return transactionService.saveFailedTransaction(USE, request.getAccountNumber(), request.getAmount())
+                            .then(Mono.error(e));
+                });
+    }
+
+    @PostMapping("/transaction/cancel")
+    public Mono<CancelBalance.Response> cancelBalance(@Valid @RequestBody CancelBalance.Request request) {
+        return transactionService.cancelBalance(request.getTransactionId(), request.getAccountNumber(), request.getAmount())
+                .map(CancelBalance.Response::from)
+                .onErrorResume(AccountException.class, e -> {
+                    log.error("Failed to cancel balance.");
+                    return transactionService.saveFailedTransaction(CANCEL, request.getAccountNumber(), request.getAmount())
+                            .then(Mono.error(e));
+                });
+    }
+}
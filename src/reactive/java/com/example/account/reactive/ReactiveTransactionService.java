@@ -0,0 +1,317 @@
+package com.example.account.reactive;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.service.AccountSummaryInvalidation;
+import com.example.account.service.TransactionIdGenerator;
+import com.example.account.service.TransactionRules;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLockReactive;
+import org.redisson.api.RedissonReactiveClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.account.type.TransactionResultType.F;
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+
+/**
+ * same operations as TransactionService without blocking a thread
+ * the account lock key matches RedisLockService so both stacks can share one redis and one database
+ *
+ * accounts flagged hot are refused, a servlet node running the ledger holds their balance in memory
+ * and would overwrite a change made here on its next flush
+ * a balance change publishes the same account summary invalidation as a servlet node,
+ * transaction records are never modified, so cached transactions on servlet nodes stay valid
+ */
+@Slf4j
+@Service
+public class ReactiveTransactionService {
+    private static final String LOCK_PREFIX = "ACLK:";
+
+    private static final String SELECT_ACCOUNT =
+            "select id, account_user_id, account_number, account_status, balance, hot from account where account_number = :accountNumber";
+    private static final String SELECT_TRANSACTION =
+            "select t.transaction_type, t.transaction_result_type, t.account_id, t.amount, t.balance_snapshot, " +
+            "t.transcation_id, t.transacted_at, a.account_number " +
+            "from %s t join account a on a.id = t.account_id where t.transcation_id = :transactionId";
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final RedissonReactiveClient redissonReactiveClient;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final long waitTimeMillis;
+    private final long leaseTimeMillis;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public ReactiveTransactionService(DatabaseClient databaseClient,
+                                      TransactionalOperator transactionalOperator,
+                                      RedissonReactiveClient redissonReactiveClient,
+                                      TransactionIdGenerator transactionIdGenerator,
+                                      @Value("${account.lock.wait-time-ms:1000}") long waitTimeMillis,
+                                      @Value("${account.lock.lease-time-ms:5000}") long leaseTimeMillis) {
+        this.databaseClient = databaseClient;
+        this.transactionalOperator = transactionalOperator;
+        this.redissonReactiveClient = redissonReactiveClient;
+        this.transactionIdGenerator = transactionIdGenerator;
+        this.waitTimeMillis = waitTimeMillis;
+        this.leaseTimeMillis = leaseTimeMillis;
+    }
+
+    public Mono<TransactionDto> useBalance(Long userId, String accountNumber, Long amount) {
+        Mono<TransactionDto> use = debitBalance(accountNumber, userId, amount)
+                .flatMap(updated -> updated == 0
+                        ? explainDecline(userId, accountNumber, amount)
+                        : findAccount(accountNumber)
+                                .switchIfEmpty(Mono.error(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND)))
+                                .flatMap(account -> insertTransaction(USE, S, account, amount)));
+        return withLock(accountNumber, transactionalOperator.transactional(use))
+                .flatMap(transactionDto -> publishInvalidation(userId).thenReturn(transactionDto));
+    }
+
+    /**
+     * the conditional update matched nothing, load the rows only to report why
+     */
+    private Mono<TransactionDto> explainDecline(Long userId, String accountNumber, Long amount) {
+        return userExists(userId)
+                .flatMap(exists -> {
+                    if (!exists) {
+                        return Mono.error(new AccountException(ErrorCode.USER_NOT_FOUND));
+                    }
+                    return findAccount(accountNumber)
+                            .switchIfEmpty(Mono.error(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND)))
+                            .flatMap(account -> {
+                                validateNotHot(account);
+                                TransactionRules.validateUserBalance(userId, account.getUserId(),
+                                        account.getAccountStatus(), account.getBalance(), amount);
+                                return Mono.error(new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE));
+                            });
+                });
+    }
+
+    public Mono<TransactionDto> cancelBalance(String transactionId, String accountNumber, Long amount) {
+        Mono<Tuple2<Long, TransactionDto>> cancel = findTransaction(transactionId)
+                .switchIfEmpty(Mono.error(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND)))
+                .flatMap(transaction -> findAccount(accountNumber)
+                        .switchIfEmpty(Mono.error(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND)))
+                        .flatMap(account -> {
+                            validateNotHot(account);
+                            TransactionRules.validateCancelBalance(transaction.getAccountId(), account.getId(),
+                                    transaction.getAmount(), amount, transaction.getTransactedAt());
+                            return creditBalance(account.getId(), amount)
+                                    .then(insertTransaction(CANCEL, S, account.credited(amount), amount))
+                                    .map(transactionDto -> Tuples.of(account.getUserId(), transactionDto));
+                        }));
+        return withLock(accountNumber, transactionalOperator.transactional(cancel))
+                .flatMap(cancelled -> publishInvalidation(cancelled.getT1()).thenReturn(cancelled.getT2()));
+    }
+
+    public Mono<TransactionDto> queryTransaction(String transactionId) {
+        return findTransaction(transactionId)
+                .switchIfEmpty(Mono.error(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND)))
+                .map(TransactionRow::toDto);
+    }
+
+    /**
+     * failures on unknown accounts have nothing to point to and are skipped, a failed write is only logged
+     */
+    public Mono<Void> saveFailedTransaction(TransactionType transactionType, String accountNumber, Long amount) {
+        return findAccount(accountNumber)
+                .flatMap(account -> insertTransaction(transactionType, F, account, amount))
+                .onErrorResume(e -> {
+                    log.warn("Failed to save failed transaction. accountNumber : {}", accountNumber, e);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private static void validateNotHot(AccountRow account) {
+        if (account.isHot()) {
+            throw new AccountException(ErrorCode.LEDGER_OWNED_ACCOUNT);
+        }
+    }
+
+    /**
+     * after the commit, a lost message only leaves a servlet node's listing stale until its next write for the user
+     */
+    private Mono<Void> publishInvalidation(Long userId) {
+        return redissonReactiveClient.getTopic(AccountSummaryInvalidation.TOPIC, StringCodec.INSTANCE)
+                .publish(AccountSummaryInvalidation.message(nodeId, userId))
+                .then()
+                .onErrorResume(e -> {
+                    log.warn("Failed to publish account summary invalidation. userId : {}", userId, e);
+                    return Mono.empty();
+                });
+    }
+
+    private <T> Mono<T> withLock(String accountNumber, Mono<T> action) {
+        RLockReactive lock = redissonReactiveClient.getLock(LOCK_PREFIX + accountNumber);
+        // redisson tracks lock ownership by thread id, a reactive chain hops threads so it gets its own id
+        long lockId = ThreadLocalRandom.current().nextLong();
+        return Mono.usingWhen(
+                lock.tryLock(waitTimeMillis, leaseTimeMillis, TimeUnit.MILLISECONDS, lockId)
+                        .flatMap(locked -> locked
+                                ? Mono.just(lockId)
+                                : Mono.error(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK))),
+                locked -> action,
+                locked -> lock.unlock(lockId)
+                        .onErrorResume(e -> {
+                            log.error("unlock failed. accountNumber : {}", accountNumber, e);
+                            return Mono.empty();
+                        }));
+    }
+
+    private Mono<Integer> debitBalance(String accountNumber, Long userId, Long amount) {
+        return databaseClient.sql("update account set balance = balance - :amount, version = version + 1, updated_at = :now " +
+                        "where account_number = :accountNumber and account_user_id = :userId " +
+                        "and balance >= :amount and account_status = :status and hot = false")
+                .bind("amount", amount)
+                .bind("now", LocalDateTime.now())
+                .bind("accountNumber", accountNumber)
+                .bind("userId", userId)
+                .bind("status", AccountStatus.IN_USE.name())
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private Mono<Integer> creditBalance(Long accountId, Long amount) {
+        return databaseClient.sql("update account set balance = balance + :amount, version = version + 1, updated_at = :now where id = :id")
+                .bind("amount", amount)
+                .bind("now", LocalDateTime.now())
+                .bind("id", accountId)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private Mono<Boolean> userExists(Long userId) {
+        return databaseClient.sql("select count(*) from account_user where id = :id")
+                .bind("id", userId)
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .map(count -> count > 0);
+    }
+
+    private Mono<AccountRow> findAccount(String accountNumber) {
+        return databaseClient.sql(SELECT_ACCOUNT)
+                .bind("accountNumber", accountNumber)
+                .map(row -> new AccountRow(
+                        row.get("id", Long.class),
+                        row.get("account_user_id", Long.class),
+                        row.get("account_number", String.class),
+                        AccountStatus.valueOf(row.get("account_status", String.class)),
+                        row.get("balance", Long.class),
+                        Boolean.TRUE.equals(row.get("hot", Boolean.class))))
+                .one();
+    }
+
+    /**
+     * transactions past the archive horizon are only in transaction_archive
+     */
+    private Mono<TransactionRow> findTransaction(String transactionId) {
+        return findTransaction("transaction", transactionId)
+                .switchIfEmpty(Mono.defer(() -> findTransaction("transaction_archive", transactionId)));
+    }
+
+    private Mono<TransactionRow> findTransaction(String table, String transactionId) {
+        return databaseClient.sql(String.format(SELECT_TRANSACTION, table))
+                .bind("transactionId", transactionId)
+                .map(row -> new TransactionRow(
+                        row.get("account_id", Long.class),
+                        row.get("account_number", String.class),
+                        TransactionType.valueOf(row.get("transaction_type", String.class)),
+                        TransactionResultType.valueOf(row.get("transaction_result_type", String.class)),
+                        row.get("amount", Long.class),
+                        row.get("balance_snapshot", Long.class),
+                        row.get("transcation_id", String.class),
+                        row.get("transacted_at", LocalDateTime.class)))
+                .one();
+    }
+
+    private Mono<TransactionDto> insertTransaction(TransactionType transactionType, TransactionResultType transactionResultType,
+                                                   AccountRow account, Long amount) {
+        return Mono.defer(() -> {
+            LocalDateTime now = LocalDateTime.now();
+            TransactionDto transactionDto = TransactionDto.builder()
+                    .accoutNumber(account.getAccountNumber())
+                    .transactionType(transactionType)
+                    .transactionResultType(transactionResultType)
+                    .amount(amount)
+                    .balanceSnapshot(account.getBalance())
+                    .transcationId(transactionIdGenerator.generate())
+                    .transactedAt(now)
+                    .build();
+            return databaseClient.sql("insert into transaction (id, transaction_type, transaction_result_type, account_id, amount, " +
+                            "balance_snapshot, transcation_id, transacted_at, created_at, updated_at) " +
+                            "values (next value for hibernate_sequence, :transactionType, :transactionResultType, :accountId, :amount, " +
+                            ":balanceSnapshot, :transactionId, :now, :now, :now)")
+                    .bind("transactionType", transactionType.name())
+                    .bind("transactionResultType", transactionResultType.name())
+                    .bind("accountId", account.getId())
+                    .bind("amount", amount)
+                    .bind("balanceSnapshot", account.getBalance())
+                    .bind("transactionId", transactionDto.getTranscationId())
+                    .bind("now", now)
+                    .fetch()
+                    .rowsUpdated()
+                    .thenReturn(transactionDto);
+        });
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class AccountRow {
+        private final Long id;
+        private final Long userId;
+        private final String accountNumber;
+        private final AccountStatus accountStatus;
+        private final Long balance;
+        private final boolean hot;
+
+        AccountRow credited(Long amount) {
+            return new AccountRow(id, userId, accountNumber, accountStatus, balance + amount, hot);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class TransactionRow {
+        private final Long accountId;
+        private final String accountNumber;
+        private final TransactionType transactionType;
+        private final TransactionResultType transactionResultType;
+        private final Long amount;
+        private final Long balanceSnapshot;
+        private final String transcationId;
+        private final LocalDateTime transactedAt;
+
+        TransactionDto toDto() {
+            return TransactionDto.builder()
+                    .accoutNumber(accountNumber)
+                    .transactionType(transactionType)
+                    .transactionResultType(transactionResultType)
+                    .amount(amount)
+                    .balanceSnapshot(balanceSnapshot)
+                    .transcationId(transcationId)
+                    .transactedAt(transactedAt)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.account.reactive;
+
+import com.example.account.dto.CancelBalance;
+import com.example.account.dto.UseBalance;
+import com.example.account.service.AccountSummaryInvalidation;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RLock;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.config.name=reactive",
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactive-test?options=DB_CLOSE_DELAY=-1",
+        "spring.flyway.url=jdbc:h2:mem:reactive-test;DB_CLOSE_DELAY=-1",
+        "account.lock.wait-time-ms=200"
+})
+class ReactiveTransactionControllerTest {
+    @Autowired
+    private WebTestClient webTestClient;
+    @Autowired
+    private DatabaseClient databaseClient;
+    @Autowired
+    private RedissonClient redissonClient;
+
+    @Test
+    void useBalanceAndPublishInvalidation() throws Exception {
+        //given
+        insertAccount(6001L, 600101L, "6001000001", 10_000L, false);
+        BlockingQueue<String> messages = new LinkedBlockingQueue<>();
+        RTopic topic = redissonClient.getTopic(AccountSummaryInvalidation.TOPIC, StringCodec.INSTANCE);
+        int listenerId = topic.addListener(String.class, (channel, message) -> messages.add(message));
+
+        //when
+        UseBalance.Response response = webTestClient.post().uri("/transaction/use")
+                .bodyValue(new UseBalance.Request(6001L, "6001000001", 3_000L))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(UseBalance.Response.class)
+                .returnResult().getResponseBody();
+        String message = messages.poll(5, TimeUnit.SECONDS);
+        topic.removeListener(listenerId);
+
+        //then
+        assertNotNull(response);
+        assertEquals("6001000001", response.getAccountNumber());
+        assertEquals(7_000L, balanceOf("6001000001"));
+        assertNotNull(message);
+        assertEquals("6001", message.split("\\|")[1]);
+    }
+
+    @Test
+    void declinedUseIsRecordedAsFailed() {
+        //given
+        insertAccount(6002L, 600201L, "6002000001", 1_000L, false);
+
+        //when
+        //then
+        webTestClient.post().uri("/transaction/use")
+                .bodyValue(new UseBalance.Request(6002L, "6002000001", 2_000L))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.errorCode").isEqualTo("AMOUNT_EXCEED_BALANCE");
+        assertEquals(1_000L, balanceOf("6002000001"));
+        assertEquals(1L, countTransactions(600201L, "F"));
+    }
+
+    @Test
+    void lockedAccountIsRefused() {
+        //given
+        insertAccount(6003L, 600301L, "6003000001", 1_000L, false);
+        RLock lock = redissonClient.getLock("ACLK:6003000001");
+        lock.lock(5, TimeUnit.SECONDS);
+
+        //when
+        //then
+        try {
+            webTestClient.post().uri("/transaction/use")
+                    .bodyValue(new UseBalance.Request(6003L, "6003000001", 100L))
+                    .exchange()
+                    .expectStatus().isEqualTo(409)
+                    .expectBody().jsonPath("$.errorCode").isEqualTo("ACCOUNT_TRANSACTION_LOCK");
+        } finally {
+            lock.unlock();
+        }
+        assertEquals(1_000L, balanceOf("6003000001"));
+        assertEquals(1L, countTransactions(600301L, "F"));
+    }
+
+    @Test
+    void hotAccountIsRefused() {
+        //given
+        insertAccount(6004L, 600401L, "6004000001", 1_000L, true);
+
+        //when
+        //then
+        webTestClient.post().uri("/transaction/use")
+                .bodyValue(new UseBalance.Request(6004L, "6004000001", 100L))
+                .exchange()
+                .expectStatus().isEqualTo(409)
+                .expectBody().jsonPath("$.errorCode").isEqualTo("LEDGER_OWNED_ACCOUNT");
+        assertEquals(1_000L, balanceOf("6004000001"));
+    }
+
+    @Test
+    void cancelAndQueryTransaction() {
+        //given
+        insertAccount(6005L, 600501L, "6005000001", 1_000L, false);
+        insertTransaction("transaction", 600511L, 600501L, "reactive-6005", LocalDateTime.now().minusDays(1));
+
+        //when
+        CancelBalance.Response response = webTestClient.post().uri("/transaction/cancel")
+                .bodyValue(new CancelBalance.Request("reactive-6005", "6005000001", 500L))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(CancelBalance.Response.class)
+                .returnResult().getResponseBody();
+
+        //then
+        assertNotNull(response);
+        assertEquals(1_500L, balanceOf("6005000001"));
+        webTestClient.get().uri("/transaction/{transactionId}", response.getTransactionId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.transactionType").isEqualTo("CANCEL")
+                .jsonPath("$.amount").isEqualTo(500);
+    }
+
+    @Test
+    void cancelOfUnknownTransactionIsRecordedAsFailed() {
+        //given
+        insertAccount(6006L, 600601L, "6006000001", 1_000L, false);
+
+        //when
+        //then
+        webTestClient.post().uri("/transaction/cancel")
+                .bodyValue(new CancelBalance.Request("reactive-missing", "6006000001", 500L))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.errorCode").isEqualTo("TRANSACTION_NOT_FOUND");
+        assertEquals(1L, countTransactions(600601L, "F"));
+    }
+
+    @Test
+    void queryArchivedTransaction() {
+        //given
+        insertAccount(6007L, 600701L, "6007000001", 1_000L, false);
+        insertTransaction("transaction_archive", 600711L, 600701L, "reactive-6007", LocalDateTime.now().minusYears(2));
+
+        //when
+        //then
+        webTestClient.get().uri("/transaction/reactive-6007")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.accountNumber").isEqualTo("6007000001")
+                .jsonPath("$.amount").isEqualTo(500);
+    }
+
+    private void insertAccount(Long userId, Long accountId, String accountNumber, Long balance, boolean hot) {
+        databaseClient.sql("insert into account_user (id, name, created_at, updated_at) values (:id, :name, :now, :now)")
+                .bind("id", userId)
+                .bind("name", "reactive" + userId)
+                .bind("now", LocalDateTime.now())
+                .fetch().rowsUpdated().block();
+        databaseClient.sql("insert into account (id, account_user_id, account_number, account_status, balance, version, hot, " +
+                        "registered_at, created_at, updated_at) " +
+                        "values (:id, :userId, :accountNumber, 'IN_USE', :balance, 0, :hot, :now, :now, :now)")
+                .bind("id", accountId)
+                .bind("userId", userId)
+                .bind("accountNumber", accountNumber)
+                .bind("balance", balance)
+                .bind("hot", hot)
+                .bind("now", LocalDateTime.now())
+                .fetch().rowsUpdated().block();
+    }
+
+    private void insertTransaction(String table, Long id, Long accountId, String transactionId, LocalDateTime transactedAt) {
+        databaseClient.sql("insert into " + table + " (id, transaction_type, transaction_result_type, account_id, amount, " +
+                        "balance_snapshot, transcation_id, transacted_at, created_at, updated_at) " +
+                        "values (:id, 'USE', 'S', :accountId, 500, 500, :transactionId, :transactedAt, :now, :now)")
+                .bind("id", id)
+                .bind("accountId", accountId)
+                .bind("transactionId", transactionId)
+                .bind("transactedAt", transactedAt)
+                .bind("now", LocalDateTime.now())
+                .fetch().rowsUpdated().block();
+    }
+
+    private Long balanceOf(String accountNumber) {
+        return databaseClient.sql("select balance from account where account_number = :accountNumber")
+                .bind("accountNumber", accountNumber)
+                .map(row -> row.get(0, Long.class))
+                .one().block();
+    }
+
+    private Long countTransactions(Long accountId, String transactionResultType) {
+        return databaseClient.sql("select count(*) from transaction where account_id = :accountId " +
+                        "and transaction_result_type = :transactionResultType")
+                .bind("accountId", accountId)
+                .bind("transactionResultType", transactionResultType)
+                .map(row -> row.get(0, Long.class))
+                .one().block();
+    }
+}
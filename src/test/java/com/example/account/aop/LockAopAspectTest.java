@@ -0,0 +1,115 @@
+package com.example.account.aop;
+
+import com.example.account.exception.AccountException;
+import com.example.account.ledger.LedgerEngine;
+import com.example.account.service.LockService;
+import com.example.account.type.ErrorCode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class LockAopAspectTest {
+    @Mock
+    private LockService lockService;
+
+    @Mock
+    private LedgerEngine ledgerEngine;
+
+    private MeterRegistry meterRegistry;
+    private SampleService sampleService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        AspectJProxyFactory factory = new AspectJProxyFactory(new SampleService());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new LockAopAspect(lockService, ledgerEngine, meterRegistry, 1000L, 5000L, 200L));
+        sampleService = factory.getProxy();
+    }
+
+    @Test
+    void lockByAccountNumber() throws InterruptedException {
+        //given
+        given(lockService.tryLock(anyString(), anyLong(), anyLong(), any()))
+                .willReturn(true);
+
+        //when
+        String result = sampleService.use(1L, "1000000012");
+
+        //then
+        assertEquals("1000000012", result);
+        verify(lockService).tryLock("1000000012", 1000L, 5000L, TimeUnit.MILLISECONDS);
+        verify(lockService).unlock("1000000012");
+        assertEquals(1L, meterRegistry.get("account.lock.wait").tag("result", "acquired").timer().count());
+    }
+
+    @Test
+    void unlockWhenMethodThrows() throws InterruptedException {
+        //given
+        given(lockService.tryLock(anyString(), anyLong(), anyLong(), any()))
+                .willReturn(true);
+
+        //when
+        assertThrows(IllegalStateException.class, () -> sampleService.fail("1000000012"));
+
+        //then
+        verify(lockService).tryLock("1000000012", 300L, 5000L, TimeUnit.MILLISECONDS);
+        verify(lockService).unlock("1000000012");
+    }
+
+    @Test
+    void lockAcquisitionFailed() throws InterruptedException {
+        //given
+        given(lockService.tryLock(anyString(), anyLong(), anyLong(), any()))
+                .willReturn(false);
+
+        //when
+        AccountException accountException = assertThrows(AccountException.class, () -> sampleService.use(1L, "1000000012"));
+
+        //then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, accountException.getErrorCode());
+        verify(lockService, never()).unlock(anyString());
+        assertEquals(1.0, meterRegistry.get("account.lock.failures").counter().count());
+    }
+
+    @Test
+    void skipLockForLedgerAccount() throws InterruptedException {
+        //given
+        given(ledgerEngine.owns(anyString()))
+                .willReturn(true);
+
+        //when
+        String result = sampleService.use(1L, "1000000012");
+
+        //then
+        assertEquals("1000000012", result);
+        verify(lockService, never()).tryLock(anyString(), anyLong(), anyLong(), any());
+        verify(lockService, never()).unlock(anyString());
+    }
+
+    static class SampleService {
+        @AccountLock(key = "#accountNumber")
+        public String use(Long userId, String accountNumber) {
+            return accountNumber;
+        }
+
+        @AccountLock(key = "#accountNumber", waitTimeMillis = 300L)
+        public String fail(String accountNumber) {
+            throw new IllegalStateException();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.account.aop;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServiceMetricsAspectTest {
+    private MeterRegistry meterRegistry;
+    private SampleService sampleService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        sampleService = proxy(new SampleService());
+    }
+
+    @Test
+    void timeSuccessByMethodAndType() {
+        //given
+        //when
+        sampleService.useBalance(1000L);
+        sampleService.useBalance(2000L);
+
+        //then
+        assertEquals(2L, meterRegistry.get("account.service")
+                .tag("class", "SampleService")
+                .tag("method", "useBalance")
+                .tag("outcome", "SUCCESS")
+                .tag("type", "USE")
+                .timer().count());
+    }
+
+    @Test
+    void tagOutcomeWithErrorCode() {
+        //given
+        //when
+        AccountException accountException = assertThrows(AccountException.class,
+                () -> sampleService.cancelBalance(1000L));
+
+        //then
+        assertEquals(ErrorCode.CANCEL_MUST_FULLY, accountException.getErrorCode());
+        assertEquals(1L, meterRegistry.get("account.service")
+                .tag("method", "cancelBalance")
+                .tag("outcome", "CANCEL_MUST_FULLY")
+                .tag("type", "CANCEL")
+                .timer().count());
+    }
+
+    @Test
+    void typeOnlyFromTheMethodAnnotation() {
+        //given
+        //when
+        sampleService.useBalanceReport();
+        proxy(new TaggedMethodOnly()).cancelBalance();
+
+        //then
+        assertEquals(1L, meterRegistry.get("account.service")
+                .tag("method", "useBalanceReport")
+                .tag("type", "NONE")
+                .timer().count());
+        assertEquals(1L, meterRegistry.get("account.service")
+                .tag("class", "TaggedMethodOnly")
+                .tag("type", "CANCEL")
+                .timer().count());
+    }
+
+    private <T> T proxy(T target) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new ServiceMetricsAspect(meterRegistry));
+        return factory.getProxy();
+    }
+
+    @ServiceMetrics
+    static class SampleService {
+        @ServiceMetrics(type = USE)
+        public Long useBalance(Long amount) {
+            return amount;
+        }
+
+        @ServiceMetrics(type = CANCEL)
+        public Long cancelBalance(Long amount) {
+            throw new AccountException(ErrorCode.CANCEL_MUST_FULLY);
+        }
+
+        // named like a use, but only the annotation sets the type
+        public void useBalanceReport() {
+        }
+    }
+
+    static class TaggedMethodOnly {
+        @ServiceMetrics(type = CANCEL)
+        public void cancelBalance() {
+        }
+    }
+}
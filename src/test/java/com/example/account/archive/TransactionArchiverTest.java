@@ -0,0 +1,60 @@
+package com.example.account.archive;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.service.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = {
+        "account.lock.mode=local",
+        "spring.datasource.url=jdbc:h2:mem:archive;DB_CLOSE_DELAY=-1",
+        "account.archive.chunk-size=2",
+        "account.archive.pause-ms=0"
+})
+class TransactionArchiverTest {
+    @Autowired
+    private TransactionArchiver transactionArchiver;
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void archiveTransactionsPastHorizon() {
+        //given
+        jdbcTemplate.update("insert into account_user(id, name, created_at, updated_at) values (4501, 'archive', now(), now())");
+        jdbcTemplate.update("insert into account(id, account_user_id, account_number, account_status, balance, version, " +
+                "registered_at, created_at, updated_at) values (450101, 4501, '4501000001', 'IN_USE', 1000, 0, now(), now(), now())");
+        for (int i = 1; i <= 5; i++) {
+            insertTransaction(450110L + i, "archive-old-" + i, LocalDateTime.now().minusYears(2).plusDays(i));
+        }
+        insertTransaction(450120L, "archive-recent", LocalDateTime.now().minusDays(10));
+
+        //when
+        ArchiveReport report = transactionArchiver.archive();
+        TransactionDto archived = transactionService.queryTransaction("archive-old-3");
+
+        //then
+        assertEquals(5, report.getRows());
+        assertEquals(3, report.getChunks());
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from transaction where account_id = 450101", Integer.class));
+        assertEquals(5, jdbcTemplate.queryForObject("select count(*) from transaction_archive where account_id = 450101", Integer.class));
+        assertEquals("4501000001", archived.getAccoutNumber());
+        assertEquals(300L, archived.getAmount());
+        assertEquals("archive-recent", transactionService.queryTransaction("archive-recent").getTranscationId());
+        assertEquals(0, transactionArchiver.archive().getRows());
+    }
+
+    private void insertTransaction(Long id, String transactionId, LocalDateTime transactedAt) {
+        jdbcTemplate.update("insert into transaction(id, transaction_type, transaction_result_type, account_id, amount, " +
+                        "balance_snapshot, transcation_id, transacted_at, created_at, updated_at) " +
+                        "values (?, 'USE', 'S', 450101, ?, 1000, ?, ?, now(), now())",
+                id, (id - 450110L) * 100, transactionId, transactedAt);
+    }
+}
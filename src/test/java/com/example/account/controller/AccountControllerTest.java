@@ -2,9 +2,12 @@ package com.example.account.controller;
 
 import com.example.account.domain.Account;
 import com.example.account.dto.AccountDto;
+import com.example.account.dto.AccountImport;
+import com.example.account.dto.AccountInfo;
 import com.example.account.dto.CreateAccount;
 import com.example.account.dto.DeleteAccount;
 import com.example.account.type.AccountStatus;
+import com.example.account.service.AccountImportService;
 import com.example.account.service.AccountService;
 import com.example.account.service.RedisTestService;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -18,8 +21,10 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
@@ -34,6 +39,9 @@ class AccountControllerTest {
     @MockBean
     private AccountService accountService;
 
+    @MockBean
+    private AccountImportService accountImportService;
+
     @MockBean
     private RedisTestService redisTestService;
 
@@ -64,6 +72,28 @@ class AccountControllerTest {
                 .andExpect(jsonPath("$.accountNumber").value(1234567890))
                 .andDo(print());
     }
+    @Test
+    void successImportAccounts() throws Exception {
+        //given
+        given(accountImportService.importAccounts(any()))
+                .willReturn(AccountImport.Response.builder()
+                        .rows(2)
+                        .usersCreated(1)
+                        .accountsCreated(2)
+                        .errors(Collections.emptyList())
+                        .build());
+
+        //when
+        //then
+        mockMvc.perform(post("/account/import")
+                        .contentType("text/csv")
+                        .content("user_id,name,initial_balance\n7,seven,100\n7,seven,200\n"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows").value(2))
+                .andExpect(jsonPath("$.accountsCreated").value(2));
+    }
+
     @Test
     void successGetAccount() throws Exception {
         //given
@@ -110,13 +140,13 @@ class AccountControllerTest {
     @Test
     void successGetAccountsByUserId() throws Exception {
         //given
-        List<AccountDto> accountDtos = Arrays.asList(
-                AccountDto.builder().accountNumber("1234567890").balance(1000L).build(),
-                AccountDto.builder().accountNumber("1234567891").balance(2000L).build(),
-                AccountDto.builder().accountNumber("1234567892").balance(3000L).build()
+        List<AccountInfo> accountInfos = Arrays.asList(
+                AccountInfo.builder().accountNumber("1234567890").balance(1000L).build(),
+                AccountInfo.builder().accountNumber("1234567891").balance(2000L).build(),
+                AccountInfo.builder().accountNumber("1234567892").balance(3000L).build()
         );
         given(accountService.getAccoutsByUserId(anyLong()))
-                .willReturn(accountDtos);
+                .willReturn(accountInfos);
         //when
 
         //then
@@ -0,0 +1,163 @@
+package com.example.account.controller;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.UseBalance;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.service.AccountService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * number of jdbc statements each endpoint issues, counted by hibernate statistics
+ */
+@SpringBootTest(properties = {
+        "account.lock.mode=none",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+class StatementCountTest {
+    private static final AtomicLong USER_IDS = new AtomicLong(4100);
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Long userId;
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        userId = USER_IDS.incrementAndGet();
+        accountUserRepository.save(AccountUser.builder()
+                .id(userId)
+                .name("statistics")
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build());
+        for (int i = 0; i < 3; i++) {
+            accountService.createAccount(userId, 10_000L);
+        }
+        account = accountRepository.findAccountSummariesByUserId(userId).stream()
+                .findFirst()
+                .flatMap(accountInfo -> accountRepository.findByAccountNumber(accountInfo.getAccountNumber()))
+                .get();
+    }
+
+    @Test
+    void getAccountsByUserId() throws Exception {
+        //given
+        Statistics statistics = statistics();
+
+        //when
+        mockMvc.perform(get("/account?user_id=" + userId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3));
+
+        //then
+        // user existence check and the projection, served from the account summary cache afterwards
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        mockMvc.perform(get("/account?user_id=" + userId))
+                .andExpect(status().isOk());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getAccount() throws Exception {
+        //given
+        Statistics statistics = statistics();
+
+        //when
+        mockMvc.perform(get("/account/" + account.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountUser.id").value(userId));
+
+        //then
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void queryTransaction() throws Exception {
+        //given
+        transactionRepository.save(Transaction.builder()
+                .account(account)
+                .transactionType(USE)
+                .transactionResultType(S)
+                .transcationId("statistics-" + userId)
+                .amount(1000L)
+                .balanceSnapshot(9000L)
+                .transactedAt(LocalDateTime.now())
+                .build());
+        Statistics statistics = statistics();
+
+        //when
+        mockMvc.perform(get("/transaction/statistics-" + userId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountNumber").value(account.getAccountNumber()));
+
+        //then
+        // transaction and account in one join, served from the cache afterwards
+        assertEquals(1, statistics.getPrepareStatementCount());
+        mockMvc.perform(get("/transaction/statistics-" + userId))
+                .andExpect(status().isOk());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void useBalance() throws Exception {
+        //given
+        Statistics statistics = statistics();
+
+        //when
+        mockMvc.perform(post("/transaction/use")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new UseBalance.Request(userId, account.getAccountNumber(), 1000L))))
+                .andExpect(status().isOk());
+
+        //then
+        // conditional debit, account reload, id sequence and transaction insert
+        assertEquals(4, statistics.getPrepareStatementCount());
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}
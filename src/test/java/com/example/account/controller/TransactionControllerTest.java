@@ -3,9 +3,17 @@ package com.example.account.controller;
 import com.example.account.dto.AccountDto;
 import com.example.account.dto.CancelBalance;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionHistory;
 import com.example.account.dto.UseBalance;
+import com.example.account.dto.UseBalanceBatch;
+import com.example.account.exception.AccountException;
+import com.example.account.service.FailedTransactionRecorder;
+import com.example.account.service.IdempotencyService;
+import com.example.account.service.TransactionBatchService;
+import com.example.account.service.TransactionHistoryService;
 import com.example.account.service.TransactionService;
 import com.example.account.type.TransactionResultType;
+import com.example.account.type.ErrorCode;
 import com.example.account.type.TransactionType;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
@@ -20,9 +28,14 @@ import java.util.Arrays;
 import java.util.List;
 
 import static com.example.account.type.TransactionType.USE;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -34,6 +47,18 @@ class TransactionControllerTest {
     @MockBean
     TransactionService transactionService;
 
+    @MockBean
+    TransactionBatchService transactionBatchService;
+
+    @MockBean
+    FailedTransactionRecorder failedTransactionRecorder;
+
+    @MockBean
+    TransactionHistoryService transactionHistoryService;
+
+    @MockBean
+    IdempotencyService idempotencyService;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -68,6 +93,102 @@ class TransactionControllerTest {
         //then
     }
 
+    @Test
+    void useBalance_withIdempotencyKey() throws Exception {
+        //given
+        given(idempotencyService.execute(eq("USE:1:2000000000:key-1"), any(), eq(UseBalance.Response.class), any()))
+                .willReturn(UseBalance.Response.builder()
+                        .accountNumber("1234567890")
+                        .transactionId("replayed")
+                        .amount(1000L)
+                        .transactionResultType(TransactionResultType.S)
+                        .build());
+
+        //when
+        //then
+        mockMvc.perform(post("/transaction/use")
+                        .header("Idempotency-Key", "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UseBalance.Request(1L, "2000000000", 3000L))))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactionId").value("replayed"));
+        verify(transactionService, never()).useBalance(anyLong(), anyString(), anyLong());
+    }
+
+    @Test
+    void useBalance_idempotencyKeyReused() throws Exception {
+        //given
+        given(idempotencyService.execute(anyString(), any(), eq(UseBalance.Response.class), any()))
+                .willThrow(new AccountException(ErrorCode.IDEMPOTENCY_KEY_REUSED));
+
+        //when
+        //then
+        mockMvc.perform(post("/transaction/use")
+                        .header("Idempotency-Key", "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UseBalance.Request(1L, "2000000000", 3000L))))
+                .andDo(print())
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.errorCode").value("IDEMPOTENCY_KEY_REUSED"));
+    }
+
+    @Test
+    void useBalance_declined() throws Exception {
+        //given
+        given(transactionService.useBalance(anyLong(), anyString(), anyLong()))
+                .willThrow(new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE));
+
+        //when
+        //then
+        mockMvc.perform(post("/transaction/use")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UseBalance.Request(1L, "2000000000", 3000L))))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode").value("AMOUNT_EXCEED_BALANCE"))
+                .andExpect(jsonPath("$.errorMessage").value(ErrorCode.AMOUNT_EXCEED_BALANCE.getDescription()));
+    }
+
+    @Test
+    void successUseBalanceBatch() throws Exception {
+        //given
+        given(transactionBatchService.useBalance(any()))
+                .willReturn(Arrays.asList(
+                        UseBalanceBatch.Item.success(TransactionDto
+                                .builder()
+                                .accoutNumber("1234567890")
+                                .transactedAt(LocalDateTime.now())
+                                .amount(1000L)
+                                .transcationId("id")
+                                .transactionResultType(TransactionResultType.S)
+                                .build()),
+                        UseBalanceBatch.Item.failure(ErrorCode.AMOUNT_EXCEED_BALANCE)));
+
+        //when
+        mockMvc.perform(post("/transaction/use/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UseBalanceBatch.Request(Arrays.asList(
+                                new UseBalance.Request(1L, "1234567890", 1000L),
+                                new UseBalance.Request(1L, "1234567890", 3000L))))))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].result.transactionId").value("id"))
+                .andExpect(jsonPath("$.items[0].result.amount").value(1000L))
+                .andExpect(jsonPath("$.items[1].errorCode").value("AMOUNT_EXCEED_BALANCE"));
+    }
+
+    @Test
+    void useBalanceBatch_invalidItem() throws Exception {
+        //when
+        mockMvc.perform(post("/transaction/use/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UseBalanceBatch.Request(Arrays.asList(
+                                new UseBalance.Request(1L, "123", 1000L))))))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void successCancelBalance() throws Exception {
         //given
@@ -124,4 +245,35 @@ class TransactionControllerTest {
 
     }
 
-}
\ No newline at end of file
+
+    @Test
+    void successGetTransactions() throws Exception {
+        //given
+        given(transactionHistoryService.getTransactions(anyString(), any(), anyInt()))
+                .willReturn(new TransactionHistory.Page(Arrays.asList(
+                        TransactionDto.builder()
+                                .accoutNumber("1234567890")
+                                .transactionType(USE)
+                                .transactionResultType(TransactionResultType.S)
+                                .transcationId("second")
+                                .amount(2000L)
+                                .build(),
+                        TransactionDto.builder()
+                                .accoutNumber("1234567890")
+                                .transactionType(USE)
+                                .transactionResultType(TransactionResultType.S)
+                                .transcationId("first")
+                                .amount(1000L)
+                                .build()),
+                        "next"));
+
+        //when
+        //then
+        mockMvc.perform(get("/account/1234567890/transactions?size=2"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactions[0].transactionId").value("second"))
+                .andExpect(jsonPath("$.transactions[1].transactionId").value("first"))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.account.datasource;
+
+import com.example.account.dto.AccountInfo;
+import com.example.account.dto.TransactionDto;
+import com.example.account.service.AccountService;
+import com.example.account.service.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * two h2 databases and no replication between them, a row written to only one of them shows where a read went
+ */
+@SpringBootTest(properties = {
+        "account.lock.mode=local",
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "account.datasource.replica.enabled=true",
+        "account.datasource.replica.url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+        "account.datasource.replica.migrate=true",
+        "account.datasource.replica.read-your-writes-ms=60000"
+})
+class ReplicaRoutingDataSourceTest {
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @Test
+    void readOnlyTransactionReadsReplica() {
+        //given
+        JdbcTemplate primary = new JdbcTemplate(primaryDataSource);
+        JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+        insertUser(primary, 4401L);
+        insertUser(replica, 4401L);
+        replica.update("insert into account(id, account_user_id, account_number, account_status, balance, version, " +
+                "registered_at, created_at, updated_at) values (440101, 4401, '4401000001', 'IN_USE', 700, 0, now(), now(), now())");
+
+        //when
+        List<AccountInfo> accounts = accountService.getAccoutsByUserId(4401L);
+
+        //then
+        assertEquals(1, accounts.size());
+        assertEquals("4401000001", accounts.get(0).getAccountNumber());
+        assertEquals(0, primary.queryForObject("select count(*) from account where account_user_id = 4401", Integer.class));
+    }
+
+    @Test
+    void readYourWritesAfterDebit() {
+        //given
+        JdbcTemplate primary = new JdbcTemplate(primaryDataSource);
+        insertUser(primary, 4402L);
+        insertUser(new JdbcTemplate(replicaDataSource), 4402L);
+        String accountNumber = accountService.createAccount(4402L, 1000L).getAccountNumber();
+        Long accountId = primary.queryForObject("select id from account where account_number = ?", Long.class, accountNumber);
+        primary.update("insert into transaction(id, transaction_type, transaction_result_type, account_id, amount, " +
+                "balance_snapshot, transcation_id, transacted_at, created_at, updated_at) " +
+                "values (440201, 'USE', 'S', ?, 100, 900, 'routing-4402', now(), now(), now())", accountId);
+
+        //when
+        transactionService.useBalance(4402L, accountNumber, 100L);
+        List<AccountInfo> accounts = accountService.getAccoutsByUserId(4402L);
+        TransactionDto transaction = transactionService.queryTransaction("routing-4402");
+
+        //then
+        assertEquals(1, accounts.size());
+        assertEquals(900L, accounts.get(0).getBalance());
+        assertEquals(accountNumber, transaction.getAccoutNumber());
+    }
+
+    private static void insertUser(JdbcTemplate jdbcTemplate, Long userId) {
+        jdbcTemplate.update("insert into account_user(id, name, created_at, updated_at) values (?, ?, now(), now())",
+                userId, "routing" + userId);
+    }
+}
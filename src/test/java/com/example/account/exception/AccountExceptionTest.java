@@ -0,0 +1,37 @@
+package com.example.account.exception;
+
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountExceptionTest {
+    @AfterEach
+    void tearDown() {
+        AccountException.setStackTraceEnabled(false);
+    }
+
+    @Test
+    void noStackTraceByDefault() {
+        //given
+        //when
+        AccountException accountException = new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+
+        //then
+        assertEquals(0, accountException.getStackTrace().length);
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE.getDescription(), accountException.getErrorMessage());
+    }
+
+    @Test
+    void stackTraceInDebugMode() {
+        //given
+        AccountException.setStackTraceEnabled(true);
+
+        //when
+        AccountException accountException = new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+
+        //then
+        assertTrue(accountException.getStackTrace().length > 0);
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.account.journal;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.Transaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionJournalTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void recoverUnprojectedRecordsAfterRestart() throws Exception {
+        //given
+        String path = tempDir.resolve("transaction.journal").toString();
+        TransactionJournal journal = open(path);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            String transactionId = "tx" + i;
+            tasks.add(() -> journal.append(transaction(transactionId)));
+        }
+
+        //when
+        for (Future<Boolean> future : executor.invokeAll(tasks)) {
+            assertTrue(future.get());
+        }
+        executor.shutdown();
+        journal.close();
+        TransactionJournal reopened = open(path);
+
+        //then
+        assertEquals(100, reopened.read(1000).getRecords().size());
+        Transaction pending = reopened.findPending("tx42").get();
+        assertEquals("1000000012", pending.getAccount().getAccountNumber());
+        assertEquals(1L, pending.getAccount().getId());
+        assertEquals(2000L, pending.getAmount());
+        reopened.close();
+    }
+
+    @Test
+    void rewindAfterEverythingIsProjected() throws Exception {
+        //given
+        String path = tempDir.resolve("transaction.journal").toString();
+        TransactionJournal journal = open(path);
+        journal.append(transaction("tx1"));
+        journal.append(transaction("tx2"));
+
+        //when
+        JournalBatch first = journal.read(1);
+        journal.checkpoint(first);
+        JournalBatch second = journal.read(10);
+        journal.checkpoint(second);
+        journal.append(transaction("tx3"));
+        journal.close();
+        TransactionJournal reopened = open(path);
+
+        //then
+        assertEquals("tx1", first.getRecords().get(0).getTransactionId());
+        assertEquals("tx2", second.getRecords().get(0).getTransactionId());
+        assertFalse(reopened.findPending("tx1").isPresent());
+        assertFalse(reopened.findPending("tx2").isPresent());
+        List<JournalRecord> remaining = reopened.read(10).getRecords();
+        assertEquals(1, remaining.size());
+        assertEquals("tx3", remaining.get(0).getTransactionId());
+        reopened.close();
+    }
+
+    @Test
+    void appendAllOrNothing() throws Exception {
+        //given
+        String path = tempDir.resolve("transaction.journal").toString();
+        TransactionJournal journal = open(path);
+        List<Transaction> tooMany = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            tooMany.add(transaction("big" + i));
+        }
+
+        //when
+        boolean appended = journal.appendAll(Arrays.asList(transaction("tx1"), transaction("tx2")));
+        boolean overflowed = journal.appendAll(tooMany);
+
+        //then
+        assertTrue(appended);
+        assertFalse(overflowed);
+        assertEquals(2, journal.read(100_000).getRecords().size());
+        assertFalse(journal.findPending("big0").isPresent());
+        journal.close();
+    }
+
+    @Test
+    void appendInsideDatabaseTransactionVisibleOnlyOnCommit() throws Exception {
+        //given
+        String path = tempDir.resolve("transaction.journal").toString();
+        TransactionJournal journal = open(path);
+
+        //when
+        TransactionSynchronizationManager.initSynchronization();
+        assertTrue(journal.append(transaction("rolledBack")));
+        boolean visibleBeforeCompletion = journal.findPending("rolledBack").isPresent()
+                || !journal.read(10).getRecords().isEmpty();
+        complete(false);
+        TransactionSynchronizationManager.initSynchronization();
+        assertTrue(journal.append(transaction("committed")));
+        complete(true);
+
+        //then
+        assertFalse(visibleBeforeCompletion);
+        assertFalse(journal.findPending("rolledBack").isPresent());
+        List<JournalRecord> records = journal.read(10).getRecords();
+        assertEquals(2, records.size());
+        assertTrue(records.get(0).isVoided());
+        assertEquals("rolledBack", records.get(0).getTransactionId());
+        assertEquals("committed", records.get(1).getTransactionId());
+        journal.close();
+
+        TransactionJournal reopened = open(path);
+        assertFalse(reopened.findPending("rolledBack").isPresent());
+        assertTrue(reopened.findPending("committed").isPresent());
+        reopened.close();
+    }
+
+    private static void complete(boolean committed) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        for (TransactionSynchronization synchronization : synchronizations) {
+            if (committed) {
+                synchronization.afterCommit();
+            }
+            synchronization.afterCompletion(committed
+                    ? TransactionSynchronization.STATUS_COMMITTED : TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+    }
+
+    private static TransactionJournal open(String path) throws Exception {
+        TransactionJournal journal = new TransactionJournal(true, path, 1, 1000L, new SimpleMeterRegistry());
+        journal.open();
+        return journal;
+    }
+
+    private static Transaction transaction(String transactionId) {
+        return Transaction.builder()
+                .account(Account.builder().id(1L).accountNumber("1000000012").build())
+                .transactionType(USE)
+                .transactionResultType(S)
+                .transcationId(transactionId)
+                .transactedAt(LocalDateTime.now())
+                .balanceSnapshot(8000L)
+                .amount(2000L)
+                .build();
+    }
+}
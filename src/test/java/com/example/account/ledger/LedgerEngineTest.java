@@ -0,0 +1,149 @@
+package com.example.account.ledger;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.journal.JournalRecord;
+import com.example.account.journal.TransactionJournalProjector;
+import com.example.account.repository.AccountRepository;
+import com.example.account.service.SnowflakeTransactionIdGenerator;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerEngineTest {
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private TransactionJournalProjector transactionJournalProjector;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @TempDir
+    Path tempDir;
+
+    private final SnowflakeTransactionIdGenerator transactionIdGenerator = new SnowflakeTransactionIdGenerator(1L);
+
+    @Test
+    void concurrentUseBalanceIsFlushedOnce() throws Exception {
+        //given
+        given(accountRepository.findLedgerAccounts())
+                .willReturn(Collections.singletonList(hotAccount(10_000L)));
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        LedgerEngine engine = open();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Callable<LedgerResult>> tasks = new ArrayList<>();
+        for (int i = 0; i < 800; i++) {
+            tasks.add(() -> engine.useBalance(12L, "1000000012", 10L));
+        }
+
+        //when
+        for (Future<LedgerResult> future : executor.invokeAll(tasks)) {
+            assertNotNull(future.get().getTransaction().getTranscationId());
+        }
+        executor.shutdown();
+        int flushed = engine.flush();
+
+        //then
+        ArgumentCaptor<List<JournalRecord>> captor = ArgumentCaptor.forClass(List.class);
+        verify(transactionJournalProjector).write(captor.capture());
+        assertEquals(800, flushed);
+        assertEquals(800, captor.getValue().size());
+        verify(accountRepository).applyLedgerSnapshot(eq(1L), eq(2_000L), eq(800L), any());
+        assertEquals(0, engine.flush());
+        engine.close();
+    }
+
+    @Test
+    void declineWithTheSameRules() throws Exception {
+        //given
+        given(accountRepository.findLedgerAccounts())
+                .willReturn(Collections.singletonList(hotAccount(1_000L)));
+        LedgerEngine engine = open();
+
+        //when
+        AccountException exceed = assertThrows(AccountException.class,
+                () -> engine.useBalance(12L, "1000000012", 2_000L));
+        AccountException unmatch = assertThrows(AccountException.class,
+                () -> engine.useBalance(13L, "1000000012", 100L));
+
+        //then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exceed.getErrorCode());
+        assertEquals(ErrorCode.USER_ACCOUNT_UNMATCH, unmatch.getErrorCode());
+        assertTrue(engine.owns("1000000012"));
+        assertFalse(engine.owns("1000000013"));
+        engine.close();
+    }
+
+    @Test
+    void replayUnflushedRecordsOnOpen() throws Exception {
+        //given
+        given(accountRepository.findLedgerAccounts())
+                .willReturn(Collections.singletonList(hotAccount(1_000L)));
+        LedgerEngine engine = open();
+        TransactionDto first = engine.useBalance(12L, "1000000012", 100L).getTransaction();
+        engine.useBalance(12L, "1000000012", 200L);
+
+        //when
+        LedgerEngine reopened = open();
+        LedgerResult result = reopened.useBalance(12L, "1000000012", 300L);
+
+        //then
+        assertEquals(400L, result.getTransaction().getBalanceSnapshot());
+        assertEquals(3L, result.getAccount().getVersion());
+        assertEquals(100L, reopened.findPending(first.getTranscationId()).get().getAmount());
+        reopened.close();
+        engine.close();
+    }
+
+    @Test
+    void refuseToStartWithoutLocalLockMode() {
+        //when
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> new LedgerEngine(accountRepository, transactionJournalProjector, transactionTemplate,
+                        transactionIdGenerator, new SimpleMeterRegistry(),
+                        true, "redis", 2, 1000, 64, tempDir.resolve("ledger.journal").toString(), 1, 1000L, 5000));
+
+        //then
+        assertTrue(exception.getMessage().contains("account.lock.mode=local"));
+    }
+
+    private LedgerEngine open() throws Exception {
+        LedgerEngine engine = new LedgerEngine(accountRepository, transactionJournalProjector, transactionTemplate,
+                transactionIdGenerator, new SimpleMeterRegistry(),
+                true, "local", 2, 1000, 64, tempDir.resolve("ledger.journal").toString(), 1, 1000L, 5000);
+        engine.open();
+        return engine;
+    }
+
+    private static LedgerAccount hotAccount(Long balance) {
+        return new LedgerAccount(1L, "1000000012", 12L, AccountStatus.IN_USE, balance, 0L);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.dto.AccountImport;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * chunks of 5 against sequence blocks of 100, every chunk takes a block of its own
+ * a database of its own, the sequence and the redis counter of the other contexts would hand out the same numbers
+ */
+@SpringBootTest(properties = {
+        "account.import.batch-size=5",
+        "account.number.source=sequence",
+        "spring.datasource.url=jdbc:h2:mem:sequence-import"
+})
+class AccountImportSequenceSourceTest {
+    @Autowired
+    private AccountImportService accountImportService;
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Test
+    void importWithFixedSizeSequenceBlocks() throws Exception {
+        //given
+        StringBuilder csv = new StringBuilder("user_id,name,initial_balance\n");
+        for (int i = 0; i < 12; i++) {
+            csv.append(i < 6 ? "4306" : "4307").append(",sequence,").append(1000 + i).append('\n');
+        }
+
+        //when
+        AccountImport.Response response = accountImportService.importAccounts(new StringReader(csv.toString()));
+
+        //then
+        assertEquals(12, response.getRows());
+        assertEquals(12, response.getAccountsCreated());
+        assertEquals(0, response.getRejected());
+
+        List<String> accountNumbers = accountRepository.findByAccountUser(accountUserRepository.findById(4306L).get()).stream()
+                .map(Account::getAccountNumber).collect(Collectors.toList());
+        accountNumbers.addAll(accountRepository.findByAccountUser(accountUserRepository.findById(4307L).get()).stream()
+                .map(Account::getAccountNumber).collect(Collectors.toList()));
+        assertEquals(12, accountNumbers.stream().distinct().count());
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.dto.AccountImport;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.StringReader;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "account.import.batch-size=5")
+class AccountImportServiceTest {
+    @Autowired
+    private AccountImportService accountImportService;
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Test
+    void importAcrossChunksWithAccountLimit() throws Exception {
+        //given
+        StringBuilder csv = new StringBuilder("user_id,name,initial_balance\n");
+        for (int i = 0; i < 12; i++) {
+            csv.append("4301,import, one,").append(1000 + i).append('\n');
+        }
+        csv.append("4302,two,500\n");
+        csv.append("4303,broken\n");
+
+        //when
+        AccountImport.Response response = accountImportService.importAccounts(new StringReader(csv.toString()));
+
+        //then
+        assertEquals(14, response.getRows());
+        assertEquals(2, response.getUsersCreated());
+        assertEquals(11, response.getAccountsCreated());
+        assertEquals(3, response.getRejected());
+        assertEquals(ErrorCode.MAX_ACCOUNT_PER_USER_10, response.getErrors().get(1).getErrorCode());
+        assertEquals(ErrorCode.INVALID_REQUEST, response.getErrors().stream()
+                .filter(error -> error.getLineNumber() == 15).findFirst().get().getErrorCode());
+        assertTrue(response.getRowsPerSecond() > 0);
+
+        AccountUser user = accountUserRepository.findById(4301L).get();
+        assertEquals("import, one", user.getName());
+        assertEquals(10, accountRepository.countByAccountUser(user));
+        assertEquals(1, accountRepository.countByAccountUser(accountUserRepository.findById(4302L).get()));
+        assertEquals(10, accountRepository.findByAccountUser(user).stream()
+                .map(Account::getAccountNumber).collect(Collectors.toSet()).size());
+    }
+
+    @Test
+    void failedChunkIsReportedAndLaterChunksImported() throws Exception {
+        //given
+        StringBuilder csv = new StringBuilder("user_id,name,initial_balance\n");
+        for (int i = 0; i < 9; i++) {
+            csv.append("4304,chunks,").append(1000 + i).append('\n');
+        }
+        // longer than account_user.name, fails the flush of the second chunk
+        csv.append("4305,").append("x".repeat(300)).append(",500\n");
+        csv.append("4304,chunks,2000\n");
+
+        //when
+        AccountImport.Response response = accountImportService.importAccounts(new StringReader(csv.toString()));
+
+        //then
+        assertEquals(11, response.getRows());
+        assertEquals(1, response.getUsersCreated());
+        assertEquals(6, response.getAccountsCreated());
+        assertEquals(5, response.getRejected());
+        assertEquals(5, response.getErrors().size());
+        assertEquals(7, response.getErrors().get(0).getLineNumber());
+        assertEquals(ErrorCode.IMPORT_CHUNK_FAILED, response.getErrors().get(4).getErrorCode());
+
+        assertEquals(6, accountRepository.countByAccountUser(accountUserRepository.findById(4304L).get()));
+        assertFalse(accountUserRepository.findById(4305L).isPresent());
+    }
+}
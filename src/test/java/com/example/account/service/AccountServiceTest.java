@@ -1,9 +1,13 @@
 package com.example.account.service;
 
+import com.example.account.datasource.ReadYourWrites;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
 import com.example.account.dto.AccountDto;
+import com.example.account.dto.AccountInfo;
+import com.example.account.dto.AccountSummary;
 import com.example.account.exception.AccountException;
+import com.example.account.ledger.LedgerEngine;
 import com.example.account.repository.AccountUserRepository;
 import com.example.account.type.AccountStatus;
 import com.example.account.repository.AccountRepository;
@@ -14,6 +18,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDateTime;
@@ -33,6 +38,14 @@ class AccountServiceTest {
     private AccountRepository accountRepository;
     @Mock
     private AccountUserRepository accountUserRepository;
+    @Mock
+    private AccountNumberAllocator accountNumberAllocator;
+    @Mock
+    private AccountSummaryCache accountSummaryCache;
+    @Spy
+    private ReadYourWrites readYourWrites = new ReadYourWrites(0L);
+    @Mock
+    private LedgerEngine ledgerEngine;
     @InjectMocks
     private AccountService accountService;
 
@@ -43,10 +56,8 @@ class AccountServiceTest {
         given(accountUserRepository.findById(anyLong()))
                 .willReturn(Optional.of(user));
 
-        given(accountRepository.findFirstByOrderByIdDesc())
-                .willReturn(Optional.of(Account.builder()
-                        .accountNumber("1000000012")
-                        .build()));
+        given(accountNumberAllocator.allocate())
+                .willReturn("1000000013");
 
         given(accountRepository.save(any()))
                 .willReturn(Account.builder()
@@ -69,8 +80,8 @@ class AccountServiceTest {
         given(accountUserRepository.findById(anyLong()))
                 .willReturn(Optional.of(user));
 
-        given(accountRepository.findFirstByOrderByIdDesc())
-                .willReturn(Optional.empty());
+        given(accountNumberAllocator.allocate())
+                .willReturn("1000000000");
 
         given(accountRepository.save(any()))
                 .willReturn(Account.builder()
@@ -237,6 +248,19 @@ class AccountServiceTest {
 
     }
 
+    @Test
+    void deleteAccountFailed_ledgerOwned() {
+//        given
+        given(ledgerEngine.owns("1234567890"))
+                .willReturn(true);
+
+        //        when
+        AccountException accountException = assertThrows(AccountException.class, () -> accountService.deleteAccount(1L, "1234567890"));
+//        then
+        assertEquals(ErrorCode.LEDGER_OWNED_ACCOUNT, accountException.getErrorCode());
+        verify(accountRepository, times(0)).findByAccountNumber(anyString());
+    }
+
     @Test
     @DisplayName("Balance Not empty")
     void deleteAccountFailed_alreadyUnregistered() {
@@ -264,36 +288,50 @@ class AccountServiceTest {
     @Test
     void successGetAccountByUserid(){
         //given
-        AccountUser ac = AccountUser.builder()
-                .id(1L)
-                .name("hello")
-                .createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now()).build();
-
-        List<Account> accounts = Arrays.asList(
-                Account.builder().accountUser(ac).accountNumber("1234567890").balance(1000L).build(),
-                Account.builder().accountUser(ac).accountNumber("1234567891").balance(2000L).build()
+        List<AccountSummary> accounts = Arrays.asList(
+                AccountSummary.builder().accountNumber("1234567890").balance(1000L).version(0L).build(),
+                AccountSummary.builder().accountNumber("1234567891").balance(2000L).version(0L).build()
         );
 
-        given(accountUserRepository.findById(anyLong())).willReturn(Optional.of(ac));
-        given(accountRepository.findByAccountUser(any())).willReturn(accounts);
+        given(accountSummaryCache.currentSequence(1L)).willReturn(7L);
+        given(accountUserRepository.existsById(anyLong())).willReturn(true);
+        given(accountRepository.findAccountSummariesByUserId(anyLong())).willReturn(accounts);
 
 
         //when
-        List<AccountDto> accountDtos = accountService.getAccoutsByUserId(1L);
+        List<AccountInfo> accountInfos = accountService.getAccoutsByUserId(1L);
 
         //then
-        assertEquals(2, accountDtos.size());
-        assertEquals("1234567890", accountDtos.get(0).getAccountNumber());
-        assertEquals(1000L, accountDtos.get(0).getBalance());
+        assertEquals(2, accountInfos.size());
+        assertEquals("1234567890", accountInfos.get(0).getAccountNumber());
+        assertEquals(1000L, accountInfos.get(0).getBalance());
 
-        assertEquals("1234567891", accountDtos.get(1).getAccountNumber());
-        assertEquals(2000L, accountDtos.get(1).getBalance());
+        assertEquals("1234567891", accountInfos.get(1).getAccountNumber());
+        assertEquals(2000L, accountInfos.get(1).getBalance());
+        verify(accountSummaryCache, times(1)).fill(1L, 7L, accounts);
 
     }
+
+    @Test
+    void getAccountByUseridFromCache(){
+        //given
+        given(accountSummaryCache.get(anyLong()))
+                .willReturn(Optional.of(Arrays.asList(
+                        AccountSummary.builder().accountNumber("1234567890").balance(1000L).version(3L).build())));
+
+        //when
+        List<AccountInfo> accountInfos = accountService.getAccoutsByUserId(1L);
+
+        //then
+        assertEquals(1, accountInfos.size());
+        assertEquals(1000L, accountInfos.get(0).getBalance());
+        verify(accountUserRepository, times(0)).existsById(anyLong());
+        verify(accountRepository, times(0)).findAccountSummariesByUserId(anyLong());
+    }
     @Test
     void failGetAccountByUserid(){
         //given
-        given(accountUserRepository.findById(anyLong())).willReturn(Optional.empty());
+        given(accountUserRepository.existsById(anyLong())).willReturn(false);
 
 
 
@@ -0,0 +1,126 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.dto.AccountSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RedissonClient;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountSummaryCacheTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AccountSummaryCache accountSummaryCache = new AccountSummaryCache(null, meterRegistry, 100, false);
+
+    @Test
+    void writeThroughNewerVersionOnly() {
+        //given
+        accountSummaryCache.fill(1L, accountSummaryCache.currentSequence(1L), summaries(1000L, 3L));
+
+        //when
+        accountSummaryCache.update(1L, account(800L, 5L));
+        accountSummaryCache.update(1L, account(900L, 4L));
+
+        //then
+        AccountSummary summary = accountSummaryCache.get(1L).get().get(0);
+        assertEquals(800L, summary.getBalance());
+        assertEquals(5L, summary.getVersion());
+        assertEquals(2000L, accountSummaryCache.get(1L).get().get(1).getBalance());
+    }
+
+    @Test
+    void rejectFillThatStartedBeforeAWrite() {
+        //given
+        long sequence = accountSummaryCache.currentSequence(1L);
+
+        //when
+        accountSummaryCache.update(1L, account(800L, 5L));
+        accountSummaryCache.fill(1L, sequence, summaries(1000L, 3L));
+
+        //then
+        assertFalse(accountSummaryCache.get(1L).isPresent());
+        assertEquals(1.0, meterRegistry.get("account.summary.cache.rejected_fills").counter().count());
+    }
+
+    @Test
+    void keepFillWhenAnotherUserWasWritten() {
+        //given
+        long sequence = accountSummaryCache.currentSequence(1L);
+
+        //when
+        accountSummaryCache.invalidate(2L);
+        accountSummaryCache.fill(1L, sequence, summaries(1000L, 3L));
+
+        //then
+        assertTrue(accountSummaryCache.get(1L).isPresent());
+        assertEquals(0.0, meterRegistry.get("account.summary.cache.rejected_fills").counter().count());
+    }
+
+    @Test
+    void updateAppliedOnlyAfterCommit() {
+        //given
+        accountSummaryCache.fill(1L, accountSummaryCache.currentSequence(1L), summaries(1000L, 3L));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            //when
+            accountSummaryCache.update(1L, account(800L, 4L));
+            long balanceBeforeCommit = accountSummaryCache.get(1L).get().get(0).getBalance();
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(TransactionSynchronization::afterCommit);
+
+            //then
+            assertEquals(1000L, balanceBeforeCommit);
+            assertEquals(800L, accountSummaryCache.get(1L).get().get(0).getBalance());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void invalidateOtherNodesThroughRedis() throws Exception {
+        //given
+        try (EmbeddedRedis redis = new EmbeddedRedis()) {
+            RedissonClient redissonClient = redis.getRedissonClient();
+            AccountSummaryCache local = new AccountSummaryCache(redissonClient, new SimpleMeterRegistry(), 100, true);
+            SimpleMeterRegistry remoteRegistry = new SimpleMeterRegistry();
+            AccountSummaryCache remote = new AccountSummaryCache(redissonClient, remoteRegistry, 100, true);
+            local.subscribe();
+            remote.subscribe();
+            local.fill(1L, local.currentSequence(1L), summaries(1000L, 3L));
+            remote.fill(1L, remote.currentSequence(1L), summaries(1000L, 3L));
+
+            //when
+            local.update(1L, account(800L, 4L));
+
+            //then
+            long deadline = System.currentTimeMillis() + 5000;
+            while (remote.get(1L).isPresent() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertFalse(remote.get(1L).isPresent());
+            assertEquals(800L, local.get(1L).get().get(0).getBalance());
+            assertEquals(1, remoteRegistry.get("account.summary.cache.invalidation.lag").timer().count());
+            local.unsubscribe();
+            remote.unsubscribe();
+        }
+    }
+
+    private static List<AccountSummary> summaries(Long firstBalance, Long firstVersion) {
+        return Arrays.asList(
+                AccountSummary.builder().accountNumber("1000000001").balance(firstBalance).version(firstVersion).build(),
+                AccountSummary.builder().accountNumber("1000000002").balance(2000L).version(0L).build());
+    }
+
+    private static Account account(Long balance, Long version) {
+        return Account.builder()
+                .accountNumber("1000000001")
+                .balance(balance)
+                .version(version)
+                .build();
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.account.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlockAccountNumberAllocatorTest {
+
+    @Test
+    void allocateFirstAccountNumber() {
+        //given
+        AtomicLong counter = new AtomicLong();
+        BlockAccountNumberAllocator allocator = new BlockAccountNumberAllocator(counter::getAndAdd, 10);
+
+        //when
+        String first = allocator.allocate();
+        String second = allocator.allocate();
+
+        //then
+        assertEquals("1000000000", first);
+        assertEquals("1000000001", second);
+    }
+
+    @Test
+    void reserveNextBlockWhenExhausted() {
+        //given
+        AtomicInteger reservations = new AtomicInteger();
+        AtomicLong counter = new AtomicLong();
+        BlockAccountNumberAllocator allocator = new BlockAccountNumberAllocator(size -> {
+            reservations.incrementAndGet();
+            return counter.getAndAdd(size);
+        }, 3);
+
+        //when
+        for (int i = 0; i < 7; i++) {
+            allocator.allocate();
+        }
+
+        //then
+        assertEquals(3, reservations.get());
+        assertEquals("1000000007", allocator.allocate());
+    }
+
+    @Test
+    void allocateRangeWithOneReservation() {
+        //given
+        AtomicInteger reservations = new AtomicInteger();
+        AtomicLong counter = new AtomicLong();
+        BlockAccountNumberAllocator allocator = new BlockAccountNumberAllocator(size -> {
+            reservations.incrementAndGet();
+            return counter.getAndAdd(size);
+        }, 3);
+
+        //when
+        String single = allocator.allocate();
+        List<String> range = allocator.allocate(500);
+
+        //then
+        assertEquals("1000000000", single);
+        assertEquals(500, range.size());
+        assertEquals("1000000003", range.get(0));
+        assertEquals("1000000502", range.get(499));
+        assertEquals(2, reservations.get());
+        assertEquals("1000000001", allocator.allocate());
+    }
+
+    @Test
+    void allocateRangeFromFixedSizeBlocks() {
+        //given
+        AtomicLong counter = new AtomicLong();
+        BlockAccountNumberAllocator allocator = new BlockAccountNumberAllocator(new AccountNumberBlockSource() {
+            @Override
+            public long reserve(int size) {
+                assertEquals(3, size);
+                // another node took the block in between
+                return counter.getAndAdd(size * 2L);
+            }
+
+            @Override
+            public boolean isFixedSize() {
+                return true;
+            }
+        }, 3);
+
+        //when
+        List<String> range = allocator.allocate(7);
+
+        //then
+        assertEquals(Arrays.asList("1000000000", "1000000001", "1000000002",
+                "1000000006", "1000000007", "1000000008", "1000000012"), range);
+        assertEquals(18, counter.get());
+    }
+
+    @Test
+    void noCollisionAcrossNodesAndThreads() throws InterruptedException {
+        //given
+        AtomicLong sharedCounter = new AtomicLong();
+        BlockAccountNumberAllocator node1 = new BlockAccountNumberAllocator(sharedCounter::getAndAdd, 7);
+        BlockAccountNumberAllocator node2 = new BlockAccountNumberAllocator(sharedCounter::getAndAdd, 7);
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch latch = new CountDownLatch(8);
+
+        //when
+        for (int i = 0; i < 8; i++) {
+            BlockAccountNumberAllocator allocator = i % 2 == 0 ? node1 : node2;
+            executor.submit(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    numbers.add(allocator.allocate());
+                }
+                latch.countDown();
+            });
+        }
+        latch.await(10, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        //then
+        assertEquals(8000, numbers.size());
+    }
+}
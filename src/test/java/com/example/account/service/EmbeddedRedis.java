@@ -0,0 +1,41 @@
+package com.example.account.service;
+
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+
+/**
+ * redis server on a free port with a redisson client connected to it
+ * plain class so the jmh benchmarks can use it too, junit tests go through EmbeddedRedisExtension
+ */
+public class EmbeddedRedis implements AutoCloseable {
+    private final RedisServer redisServer;
+    private final RedissonClient redissonClient;
+
+    public EmbeddedRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://127.0.0.1:" + port);
+        redissonClient = Redisson.create(config);
+    }
+
+    public RedissonClient getRedissonClient() {
+        return redissonClient;
+    }
+
+    @Override
+    public void close() {
+        redissonClient.shutdown();
+        redisServer.stop();
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.account.service;
+
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.redisson.api.RedissonClient;
+
+/**
+ * one EmbeddedRedis per test class, register it as a static field with @RegisterExtension
+ */
+public class EmbeddedRedisExtension implements BeforeAllCallback, AfterAllCallback {
+    private EmbeddedRedis embeddedRedis;
+
+    @Override
+    public void beforeAll(ExtensionContext context) throws Exception {
+        embeddedRedis = new EmbeddedRedis();
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context) {
+        embeddedRedis.close();
+    }
+
+    public RedissonClient getRedissonClient() {
+        return embeddedRedis.getRedissonClient();
+    }
+}
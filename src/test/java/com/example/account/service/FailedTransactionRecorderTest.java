@@ -0,0 +1,100 @@
+package com.example.account.service;
+
+import com.example.account.dto.FailedTransaction;
+import com.example.account.type.OverflowPolicy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FailedTransactionRecorderTest {
+    @Mock
+    private TransactionService transactionService;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void flushInBatches() {
+        //given
+        FailedTransactionRecorder recorder = new FailedTransactionRecorder(transactionService, meterRegistry, 10, 2, OverflowPolicy.DROP_NEWEST);
+        List<Integer> batchSizes = new ArrayList<>();
+        doAnswer(invocation -> batchSizes.add(((List<?>) invocation.getArgument(0)).size()))
+                .when(transactionService).saveFailedTransactions(any());
+        recorder.record(USE, "1000000001", 100L);
+        recorder.record(USE, "1000000002", 200L);
+        recorder.record(CANCEL, "1000000003", 300L);
+
+        //when
+        recorder.flush();
+
+        //then
+        assertEquals(List.of(2, 1), batchSizes);
+        assertEquals(0.0, meterRegistry.get("account.failed_transaction.queue.size").gauge().value());
+        assertEquals(3.0, meterRegistry.get("account.failed_transaction.written").counter().count());
+    }
+
+    @Test
+    void dropNewestWhenFull() {
+        //given
+        FailedTransactionRecorder recorder = new FailedTransactionRecorder(transactionService, meterRegistry, 2, 10, OverflowPolicy.DROP_NEWEST);
+        ArgumentCaptor<List<FailedTransaction>> captor = ArgumentCaptor.forClass(List.class);
+
+        //when
+        recorder.record(USE, "1000000001", 100L);
+        recorder.record(USE, "1000000002", 200L);
+        recorder.record(USE, "1000000003", 300L);
+        recorder.flush();
+
+        //then
+        verify(transactionService, times(1)).saveFailedTransactions(captor.capture());
+        assertEquals("1000000001", captor.getValue().get(0).getAccountNumber());
+        assertEquals("1000000002", captor.getValue().get(1).getAccountNumber());
+        assertEquals(1.0, meterRegistry.get("account.failed_transaction.dropped").counter().count());
+    }
+
+    @Test
+    void dropOldestWhenFull() {
+        //given
+        FailedTransactionRecorder recorder = new FailedTransactionRecorder(transactionService, meterRegistry, 2, 10, OverflowPolicy.DROP_OLDEST);
+        ArgumentCaptor<List<FailedTransaction>> captor = ArgumentCaptor.forClass(List.class);
+
+        //when
+        recorder.record(USE, "1000000001", 100L);
+        recorder.record(USE, "1000000002", 200L);
+        recorder.record(USE, "1000000003", 300L);
+        recorder.flush();
+
+        //then
+        verify(transactionService, times(1)).saveFailedTransactions(captor.capture());
+        assertEquals("1000000002", captor.getValue().get(0).getAccountNumber());
+        assertEquals("1000000003", captor.getValue().get(1).getAccountNumber());
+        assertEquals(1.0, meterRegistry.get("account.failed_transaction.dropped").counter().count());
+    }
+
+    @Test
+    void writeOnCallerThreadWhenFull() {
+        //given
+        FailedTransactionRecorder recorder = new FailedTransactionRecorder(transactionService, meterRegistry, 1, 10, OverflowPolicy.CALLER_RUNS);
+
+        //when
+        recorder.record(USE, "1000000001", 100L);
+        recorder.record(USE, "1000000002", 200L);
+
+        //then
+        verify(transactionService, times(1)).saveFailedTransactions(any());
+        assertEquals(0.0, meterRegistry.get("account.failed_transaction.dropped").counter().count());
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.account.service;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.util.Collections;
+
+/**
+ * every spring test context starts its own embedded redis through LocalRedisConfig,
+ * a free port per context keeps contexts with different properties from colliding on 6379
+ */
+public class FreeRedisPortEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            environment.getPropertySources().addFirst(new MapPropertySource("freeRedisPort",
+                    Collections.singletonMap("spring.redis.port", socket.getLocalPort())));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
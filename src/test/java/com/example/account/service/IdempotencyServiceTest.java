@@ -0,0 +1,170 @@
+package com.example.account.service;
+
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyServiceTest {
+    private static final UseBalance.Request REQUEST = new UseBalance.Request(12L, "1000000012", 1000L);
+
+    @RegisterExtension
+    static final EmbeddedRedisExtension redis = new EmbeddedRedisExtension();
+
+    static Stream<IdempotencyStore> idempotencyStores() {
+        return Stream.of(new LocalIdempotencyStore(), new RedisIdempotencyStore(redis.getRedissonClient()));
+    }
+
+    @ParameterizedTest
+    @MethodSource("idempotencyStores")
+    void replayFirstResponse(IdempotencyStore idempotencyStore) {
+        //given
+        IdempotencyService idempotencyService = idempotencyService(idempotencyStore, 1000);
+        String key = UUID.randomUUID().toString();
+        AtomicInteger executions = new AtomicInteger();
+
+        //when
+        UseBalance.Response first = idempotencyService.execute(key, REQUEST, UseBalance.Response.class, () -> response(executions.incrementAndGet()));
+        UseBalance.Response second = idempotencyService.execute(key, REQUEST, UseBalance.Response.class, () -> response(executions.incrementAndGet()));
+
+        //then
+        assertEquals(1, executions.get());
+        assertEquals(first.getTransactionId(), second.getTransactionId());
+        assertEquals(first.getTransactedAt(), second.getTransactedAt());
+    }
+
+    @ParameterizedTest
+    @MethodSource("idempotencyStores")
+    void concurrentDuplicatesWaitForTheFirst(IdempotencyStore idempotencyStore) throws Exception {
+        //given
+        IdempotencyService idempotencyService = idempotencyService(idempotencyStore, 5000);
+        String key = UUID.randomUUID().toString();
+        AtomicInteger executions = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Callable<UseBalance.Response>> tasks = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            tasks.add(() -> idempotencyService.execute(key, REQUEST, UseBalance.Response.class, () -> {
+                sleep(200);
+                return response(executions.incrementAndGet());
+            }));
+        }
+
+        //when
+        List<Future<UseBalance.Response>> futures = executor.invokeAll(tasks);
+        executor.shutdown();
+
+        //then
+        assertEquals(1, executions.get());
+        for (Future<UseBalance.Response> future : futures) {
+            assertEquals("tx1", future.get().getTransactionId());
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("idempotencyStores")
+    void failedRequestCanBeRetried(IdempotencyStore idempotencyStore) {
+        //given
+        IdempotencyService idempotencyService = idempotencyService(idempotencyStore, 1000);
+        String key = UUID.randomUUID().toString();
+
+        //when
+        assertThrows(AccountException.class, () -> idempotencyService.execute(key, REQUEST, UseBalance.Response.class, () -> {
+            throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        }));
+        UseBalance.Response retried = idempotencyService.execute(key, REQUEST, UseBalance.Response.class, () -> response(2));
+
+        //then
+        assertEquals("tx2", retried.getTransactionId());
+    }
+
+    @ParameterizedTest
+    @MethodSource("idempotencyStores")
+    void unexpectedFailureIsNotRunAgain(IdempotencyStore idempotencyStore) {
+        //given
+        IdempotencyService idempotencyService = idempotencyService(idempotencyStore, 1000);
+        String key = UUID.randomUUID().toString();
+        AtomicInteger executions = new AtomicInteger();
+
+        //when
+        assertThrows(IllegalStateException.class, () -> idempotencyService.execute(key, REQUEST, UseBalance.Response.class, () -> {
+            executions.incrementAndGet();
+            throw new IllegalStateException("failed after commit");
+        }));
+        AccountException accountException = assertThrows(AccountException.class,
+                () -> idempotencyService.execute(key, REQUEST, UseBalance.Response.class, () -> response(executions.incrementAndGet())));
+
+        //then
+        assertEquals(1, executions.get());
+        assertEquals(ErrorCode.IDEMPOTENT_REQUEST_OUTCOME_UNKNOWN, accountException.getErrorCode());
+    }
+
+    @ParameterizedTest
+    @MethodSource("idempotencyStores")
+    void giveUpWaitingOnAStuckRequest(IdempotencyStore idempotencyStore) {
+        //given
+        IdempotencyService idempotencyService = idempotencyService(idempotencyStore, 100);
+        String key = UUID.randomUUID().toString();
+        idempotencyStore.putIfAbsent(key, IdempotencyService.inProgress(idempotencyService.fingerprint(REQUEST)), 10, TimeUnit.SECONDS);
+
+        //when
+        AccountException accountException = assertThrows(AccountException.class,
+                () -> idempotencyService.execute(key, REQUEST, UseBalance.Response.class, () -> response(1)));
+
+        //then
+        assertEquals(ErrorCode.IDEMPOTENT_REQUEST_IN_PROGRESS, accountException.getErrorCode());
+    }
+
+    @ParameterizedTest
+    @MethodSource("idempotencyStores")
+    void rejectKeyReusedForAnotherRequest(IdempotencyStore idempotencyStore) {
+        //given
+        IdempotencyService idempotencyService = idempotencyService(idempotencyStore, 1000);
+        String key = UUID.randomUUID().toString();
+        idempotencyService.execute(key, REQUEST, UseBalance.Response.class, () -> response(1));
+
+        //when
+        AccountException accountException = assertThrows(AccountException.class,
+                () -> idempotencyService.execute(key, new UseBalance.Request(12L, "1000000012", 2000L),
+                        UseBalance.Response.class, () -> response(2)));
+
+        //then
+        assertEquals(ErrorCode.IDEMPOTENCY_KEY_REUSED, accountException.getErrorCode());
+    }
+
+    private static IdempotencyService idempotencyService(IdempotencyStore idempotencyStore, long waitTimeoutMillis) {
+        return new IdempotencyService(idempotencyStore, new ObjectMapper().findAndRegisterModules(),
+                60_000, 30_000, waitTimeoutMillis, 10);
+    }
+
+    private static UseBalance.Response response(int execution) {
+        return UseBalance.Response.builder()
+                .accountNumber("1000000012")
+                .transactionResultType(TransactionResultType.S)
+                .transactionId("tx" + execution)
+                .amount(1000L)
+                .transactedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.account.service;
+
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Collections;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LockServiceConcurrencyTest {
+    @RegisterExtension
+    static final EmbeddedRedisExtension redis = new EmbeddedRedisExtension();
+
+    static Stream<LockService> lockServices() {
+        return Stream.of(new LocalLockService(1024), new RedisLockService(redis.getRedissonClient()));
+    }
+
+    @ParameterizedTest
+    @MethodSource("lockServices")
+    void mutualExclusionOnSameAccount(LockService lockService) throws Exception {
+        //given
+        int threads = 8;
+        int iterations = 100;
+        int[] balance = {0};
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        //when
+        Callable<Void> task = () -> {
+            for (int i = 0; i < iterations; i++) {
+                assertTrue(lockService.tryLock("1000000000", 5, 5, TimeUnit.SECONDS));
+                try {
+                    if (inside.incrementAndGet() > 1) {
+                        overlaps.incrementAndGet();
+                    }
+                    balance[0] = balance[0] + 1;
+                    inside.decrementAndGet();
+                } finally {
+                    lockService.unlock("1000000000");
+                }
+            }
+            return null;
+        };
+        for (Future<Void> future : executor.invokeAll(Collections.nCopies(threads, task))) {
+            future.get();
+        }
+        executor.shutdown();
+
+        //then
+        assertEquals(0, overlaps.get());
+        assertEquals(threads * iterations, balance[0]);
+    }
+
+    @ParameterizedTest
+    @MethodSource("lockServices")
+    void differentAccountsDoNotBlock(LockService lockService) throws Exception {
+        //given
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> holder = executor.submit(() -> {
+            assertTrue(lockService.tryLock("1000000001", 1, 5, TimeUnit.SECONDS));
+            locked.countDown();
+            release.await();
+            lockService.unlock("1000000001");
+            return null;
+        });
+        locked.await();
+
+        //when
+        boolean other = lockService.tryLock("1000000002", 0, 5, TimeUnit.SECONDS);
+        boolean same = lockService.tryLock("1000000001", 0, 5, TimeUnit.SECONDS);
+
+        //then
+        assertTrue(other);
+        assertFalse(same);
+
+        lockService.unlock("1000000002");
+        release.countDown();
+        holder.get();
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.account.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.example.account.service.SnowflakeTransactionIdGenerator.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeTransactionIdGeneratorTest {
+
+    @Test
+    void idsAreOrderedAndCarryTheNodeId() {
+        //given
+        AtomicLong clock = new AtomicLong(EPOCH + 1000);
+        SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(7, clock::get);
+
+        //when
+        long first = generator.nextId();
+        long second = generator.nextId();
+        clock.set(EPOCH + 500);
+        long afterClockMovedBack = generator.nextId();
+        clock.set(EPOCH + 2000);
+        long later = generator.nextId();
+
+        //then
+        assertEquals(1000, first >>> (NODE_BITS + SEQUENCE_BITS));
+        assertEquals(7, (first >>> SEQUENCE_BITS) & ((1 << NODE_BITS) - 1));
+        assertEquals(first + 1, second);
+        assertEquals(second + 1, afterClockMovedBack);
+        assertEquals(2000, later >>> (NODE_BITS + SEQUENCE_BITS));
+        assertTrue(format(first).compareTo(format(second)) < 0);
+        assertTrue(format(afterClockMovedBack).compareTo(format(later)) < 0);
+    }
+
+    @Test
+    void sequenceOverflowBorrowsTheNextMillisecond() {
+        //given
+        SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(0, () -> EPOCH + 1000);
+
+        //when
+        long last = 0;
+        for (int i = 0; i <= 1 << SEQUENCE_BITS; i++) {
+            last = generator.nextId();
+        }
+
+        //then
+        assertEquals(1001, last >>> (NODE_BITS + SEQUENCE_BITS));
+        assertEquals(0, last & ((1 << SEQUENCE_BITS) - 1));
+    }
+
+    @Test
+    void formatIsFixedWidth() {
+        assertEquals("0000000000000", format(0));
+        assertEquals("0000000000001", format(1));
+        assertEquals("FZZZZZZZZZZZZ", format(-1));
+        assertEquals(ID_LENGTH, new SnowflakeTransactionIdGenerator(0).generate().length());
+    }
+
+    @Test
+    void uniqueAcrossThreads() throws Exception {
+        //given
+        SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(1);
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            tasks.add(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    ids.add(generator.generate());
+                }
+                return null;
+            });
+        }
+
+        //when
+        executor.invokeAll(tasks);
+        executor.shutdown();
+
+        //then
+        assertEquals(80_000, ids.size());
+    }
+
+    @Test
+    void rejectOutOfRangeNodeId() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeTransactionIdGenerator(1024));
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.dto.UseBalance;
+import com.example.account.dto.UseBalanceBatch;
+import com.example.account.exception.AccountException;
+import com.example.account.ledger.LedgerEngine;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionBatchServiceTest {
+    @Mock
+    private TransactionService transactionService;
+    @Mock
+    private FailedTransactionRecorder failedTransactionRecorder;
+    @Mock
+    private LedgerEngine ledgerEngine;
+
+    @InjectMocks
+    private TransactionBatchService transactionBatchService;
+
+    @Test
+    void groupByAccountAndKeepRequestOrder() {
+        //given
+        UseBalance.Request first = new UseBalance.Request(1L, "1000000001", 100L);
+        UseBalance.Request second = new UseBalance.Request(1L, "1000000002", 200L);
+        UseBalance.Request third = new UseBalance.Request(1L, "1000000001", 300L);
+
+        given(transactionService.useBalanceBatch(eq("1000000001"), anyList()))
+                .willReturn(Arrays.asList(success(100L), success(300L)));
+        given(transactionService.useBalanceBatch(eq("1000000002"), anyList()))
+                .willReturn(Collections.singletonList(success(200L)));
+
+        //when
+        List<UseBalanceBatch.Item> items = transactionBatchService.useBalance(Arrays.asList(first, second, third));
+
+        //then
+        assertEquals(100L, items.get(0).getResult().getAmount());
+        assertEquals(200L, items.get(1).getResult().getAmount());
+        assertEquals(300L, items.get(2).getResult().getAmount());
+        verify(transactionService).useBalanceBatch("1000000001", Arrays.asList(first, third));
+        verify(transactionService).useBalanceBatch("1000000002", Collections.singletonList(second));
+    }
+
+    @Test
+    void failWholeAccountGroupAndRecordFailures() {
+        //given
+        given(transactionService.useBalanceBatch(anyString(), anyList()))
+                .willThrow(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK));
+
+        //when
+        List<UseBalanceBatch.Item> items = transactionBatchService.useBalance(Arrays.asList(
+                new UseBalance.Request(1L, "1000000001", 100L),
+                new UseBalance.Request(1L, "1000000001", 200L)));
+
+        //then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, items.get(0).getErrorCode());
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, items.get(1).getErrorCode());
+        verify(failedTransactionRecorder, times(1)).record(USE, "1000000001", 100L);
+        verify(failedTransactionRecorder, times(1)).record(USE, "1000000001", 200L);
+    }
+
+    @Test
+    void recordFailedItemsOfLedgerAccounts() {
+        //given
+        given(transactionService.useBalanceBatch(anyString(), anyList()))
+                .willReturn(Arrays.asList(success(100L), UseBalanceBatch.Item.failure(ErrorCode.AMOUNT_EXCEED_BALANCE)));
+        given(ledgerEngine.owns("1000000001")).willReturn(true);
+
+        //when
+        List<UseBalanceBatch.Item> items = transactionBatchService.useBalance(Arrays.asList(
+                new UseBalance.Request(1L, "1000000001", 100L),
+                new UseBalance.Request(1L, "1000000001", 200L)));
+
+        //then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, items.get(1).getErrorCode());
+        verify(failedTransactionRecorder, times(1)).record(USE, "1000000001", 200L);
+        verify(failedTransactionRecorder, never()).record(USE, "1000000001", 100L);
+    }
+
+    private static UseBalanceBatch.Item success(Long amount) {
+        return UseBalanceBatch.Item.success(TransactionDto.builder()
+                .accoutNumber("1000000001")
+                .amount(amount)
+                .transcationId("id")
+                .build());
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionCacheTest {
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TransactionCache transactionCache =
+            new TransactionCache(null, new ObjectMapper(), meterRegistry, 100, false, 0);
+
+    @Test
+    void readThroughHitAndMissRatio() {
+        //given
+        transactionCache.put(transactionDto("id"));
+
+        //when
+        boolean hit = transactionCache.get("id").isPresent();
+        boolean miss = transactionCache.get("other").isPresent();
+
+        //then
+        assertTrue(hit);
+        assertFalse(miss);
+        assertEquals(0.5, meterRegistry.get("account.transaction.cache.hit.ratio").gauge().value());
+        assertEquals(0.5, meterRegistry.get("account.transaction.cache.miss.ratio").gauge().value());
+    }
+
+    @Test
+    void publishOnlyAfterCommit() {
+        //given
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            //when
+            transactionCache.put(transactionDto("id"));
+            boolean visibleBeforeCommit = transactionCache.get("id").isPresent();
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(TransactionSynchronization::afterCommit);
+
+            //then
+            assertFalse(visibleBeforeCommit);
+            assertTrue(transactionCache.get("id").isPresent());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static TransactionDto transactionDto(String transactionId) {
+        return TransactionDto.builder()
+                .accoutNumber("1000000012")
+                .transactionType(USE)
+                .transactionResultType(S)
+                .transcationId(transactionId)
+                .amount(2000L)
+                .balanceSnapshot(8000L)
+                .build();
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionHistory;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.ArchivedTransactionRepository;
+import com.example.account.repository.TransactionRepository;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "account.lock.mode=none")
+class TransactionHistoryServiceTest {
+    private static final AtomicLong USER_IDS = new AtomicLong(4200);
+    private static final LocalDateTime NOW = LocalDateTime.now().withNano(0);
+
+    @Autowired
+    private TransactionHistoryService transactionHistoryService;
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private ArchivedTransactionRepository archivedTransactionRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        long userId = USER_IDS.incrementAndGet();
+        accountUserRepository.save(AccountUser.builder()
+                .id(userId)
+                .name("history")
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build());
+        String accountNumber = accountService.createAccount(userId, 10_000L).getAccountNumber();
+        account = accountRepository.findByAccountNumber(accountNumber).get();
+
+        // 25 transactions over 15 distinct timestamps, so pages break inside a run of equal timestamps
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            transactions.add(Transaction.builder()
+                    .account(account)
+                    .transactionType(USE)
+                    .transactionResultType(S)
+                    .transcationId("history-" + userId + "-" + i)
+                    .amount((long) i)
+                    .balanceSnapshot(10_000L)
+                    .transactedAt(NOW.minusDays(400).plusDays(i % 15))
+                    .build());
+        }
+        transactionRepository.saveAll(transactions);
+    }
+
+    @Test
+    void keysetPagesCoverEveryTransactionOnce() {
+        //given
+        List<TransactionDto> collected = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+
+        //when
+        do {
+            TransactionHistory.Page page = transactionHistoryService.getTransactions(account.getAccountNumber(), cursor, 10);
+            collected.addAll(page.getTransactions());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        //then
+        assertEquals(3, pages);
+        assertEquals(25, collected.size());
+        assertEquals(25, collected.stream().map(TransactionDto::getTranscationId).distinct().count());
+        for (int i = 1; i < collected.size(); i++) {
+            assertFalse(collected.get(i).getTransactedAt().isAfter(collected.get(i - 1).getTransactedAt()));
+        }
+    }
+
+    @Test
+    void exportStreamsTheRequestedWindowInOrder() {
+        //given
+        List<TransactionDto> exported = new ArrayList<>();
+
+        //when
+        transactionHistoryService.exportTransactions(account.getId(), NOW.minusYears(2), NOW, exported::add);
+
+        //then
+        assertEquals(25, exported.size());
+        for (int i = 1; i < exported.size(); i++) {
+            assertFalse(exported.get(i).getTransactedAt().isBefore(exported.get(i - 1).getTransactedAt()));
+        }
+        assertEquals(account.getAccountNumber(), exported.get(0).getAccoutNumber());
+    }
+
+    @Test
+    void pagesAndExportContinueIntoTheArchive() {
+        //given
+        List<Long> oldest = transactionRepository.findLatestByAccountId(account.getId(), PageRequest.of(0, 25)).stream()
+                .skip(15)
+                .map(Transaction::getId)
+                .collect(Collectors.toList());
+        transactionTemplate.executeWithoutResult(status -> {
+            archivedTransactionRepository.copyFromTransactions(oldest, LocalDateTime.now());
+            transactionRepository.deleteByIdIn(oldest);
+        });
+        List<TransactionDto> paged = new ArrayList<>();
+        List<TransactionDto> exported = new ArrayList<>();
+
+        //when
+        String cursor = null;
+        do {
+            TransactionHistory.Page page = transactionHistoryService.getTransactions(account.getAccountNumber(), cursor, 10);
+            paged.addAll(page.getTransactions());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        transactionHistoryService.exportTransactions(account.getId(), NOW.minusYears(2), NOW, exported::add);
+
+        //then
+        assertEquals(25, paged.size());
+        assertEquals(25, exported.size());
+        assertEquals(25, paged.stream().map(TransactionDto::getTranscationId).distinct().count());
+        assertEquals(25, exported.stream().map(TransactionDto::getTranscationId).distinct().count());
+        for (int i = 1; i < 25; i++) {
+            assertFalse(paged.get(i).getTransactedAt().isAfter(paged.get(i - 1).getTransactedAt()));
+            assertFalse(exported.get(i).getTransactedAt().isBefore(exported.get(i - 1).getTransactedAt()));
+        }
+    }
+
+    @Test
+    void rejectMalformedCursor() {
+        //given
+        //when
+        AccountException accountException = assertThrows(AccountException.class,
+                () -> transactionHistoryService.getTransactions(account.getAccountNumber(), "not-a-cursor", 10));
+
+        //then
+        assertEquals(ErrorCode.INVALID_REQUEST, accountException.getErrorCode());
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionRulesTest {
+
+    @Test
+    void validateUserBalance() {
+        //given
+        //when
+        AccountException unmatch = assertThrows(AccountException.class,
+                () -> TransactionRules.validateUserBalance(1L, 2L, AccountStatus.IN_USE, 1000L, 100L));
+        AccountException unregistered = assertThrows(AccountException.class,
+                () -> TransactionRules.validateUserBalance(1L, 1L, AccountStatus.UNREGISTERED, 1000L, 100L));
+        AccountException exceed = assertThrows(AccountException.class,
+                () -> TransactionRules.validateUserBalance(1L, 1L, AccountStatus.IN_USE, 99L, 100L));
+
+        //then
+        assertEquals(ErrorCode.USER_ACCOUNT_UNMATCH, unmatch.getErrorCode());
+        assertEquals(ErrorCode.ACCOUNT_ALREDAY_UNREGISTERED, unregistered.getErrorCode());
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exceed.getErrorCode());
+        assertDoesNotThrow(() -> TransactionRules.validateUserBalance(1L, 1L, AccountStatus.IN_USE, 100L, 100L));
+    }
+
+    @Test
+    void validateCancelBalance() {
+        //given
+        LocalDateTime now = LocalDateTime.now();
+
+        //when
+        AccountException unmatch = assertThrows(AccountException.class,
+                () -> TransactionRules.validateCancelBalance(1L, 2L, 100L, 100L, now));
+        AccountException partial = assertThrows(AccountException.class,
+                () -> TransactionRules.validateCancelBalance(1L, 1L, 100L, 50L, now));
+        AccountException tooOld = assertThrows(AccountException.class,
+                () -> TransactionRules.validateCancelBalance(1L, 1L, 100L, 100L, now.minusYears(1L).minusDays(1L)));
+
+        //then
+        assertEquals(ErrorCode.TRANSACTION_ACCOUNT_UN_MATCH, unmatch.getErrorCode());
+        assertEquals(ErrorCode.CANCEL_MUST_FULLY, partial.getErrorCode());
+        assertEquals(ErrorCode.TOO_OLD_ORDER_TO_CANCEL, tooOld.getErrorCode());
+        assertDoesNotThrow(() -> TransactionRules.validateCancelBalance(1L, 1L, 100L, 100L, now));
+    }
+}
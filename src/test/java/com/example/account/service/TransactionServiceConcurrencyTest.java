@@ -0,0 +1,87 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "account.lock.mode=none",
+        "account.retry.max-attempts=20"
+})
+class TransactionServiceConcurrencyTest {
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void noMoneyLostUnderConcurrentUseBalance() throws Exception {
+        //given
+        accountUserRepository.save(AccountUser.builder()
+                .id(4001L)
+                .name("concurrent")
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build());
+        String accountNumber = accountService.createAccount(4001L, 100_000L).getAccountNumber();
+        int threads = 8;
+        int usesPerThread = 25;
+        long amount = 100L;
+        AtomicInteger success = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        //when
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            tasks.add(() -> {
+                for (int j = 0; j < usesPerThread; j++) {
+                    try {
+                        transactionService.useBalance(4001L, accountNumber, amount);
+                        success.incrementAndGet();
+                    } catch (AccountException e) {
+                        // conflict retries exhausted, nothing must have been debited
+                    }
+                }
+                return null;
+            });
+        }
+        for (Future<Void> future : executor.invokeAll(tasks)) {
+            future.get();
+        }
+        executor.shutdown();
+
+        //then
+        Account account = accountRepository.findByAccountNumber(accountNumber).get();
+        long recorded = jdbcTemplate.queryForObject(
+                "select count(*) from transaction where account_id = ? and transaction_type = ? and transaction_result_type = ?",
+                Long.class, account.getId(), USE.name(), S.name());
+        assertTrue(success.get() > 0);
+        assertEquals(100_000L - amount * success.get(), account.getBalance());
+        assertEquals(success.get(), recorded);
+    }
+}
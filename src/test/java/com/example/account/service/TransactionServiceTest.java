@@ -1,12 +1,22 @@
 package com.example.account.service;
 
+import com.example.account.datasource.ReadYourWrites;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
+import com.example.account.domain.ArchivedTransaction;
 import com.example.account.domain.Transaction;
+import com.example.account.dto.FailedTransaction;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.UseBalance;
+import com.example.account.dto.UseBalanceBatch;
 import com.example.account.exception.AccountException;
+import com.example.account.journal.TransactionJournal;
+import com.example.account.ledger.LedgerAccount;
+import com.example.account.ledger.LedgerEngine;
+import com.example.account.ledger.LedgerResult;
 import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.ArchivedTransactionRepository;
 import com.example.account.repository.TransactionRepository;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
@@ -17,11 +27,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 import static com.example.account.type.TransactionResultType.F;
@@ -43,6 +57,20 @@ class TransactionServiceTest {
     private AccountUserRepository accountUserRepository;
     @Mock
     private AccountRepository accountRepository;
+    @Mock
+    private TransactionJournal transactionJournal;
+    @Mock
+    private TransactionCache transactionCache;
+    @Mock
+    private TransactionIdGenerator transactionIdGenerator;
+    @Mock
+    private AccountSummaryCache accountSummaryCache;
+    @Mock
+    private LedgerEngine ledgerEngine;
+    @Spy
+    private ReadYourWrites readYourWrites = new ReadYourWrites(0L);
+    @Mock
+    private ArchivedTransactionRepository archivedTransactionRepository;
 
     @InjectMocks
     private TransactionService transactionService;
@@ -51,14 +79,14 @@ class TransactionServiceTest {
     void successUseBalance(){
         //given
         AccountUser user = AccountUser.builder().id(12L).name("hello").build();
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(user));
+        given(accountRepository.debitBalance(anyString(), anyLong(), anyLong(), any()))
+                .willReturn(1);
 
         Account account = Account.builder()
                 .accountUser(user)
                 .accountStatus(AccountStatus.IN_USE)
                 .accountNumber("1000000012")
-                .balance(10000L)
+                .balance(8000L)
                 .build();
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(account));
@@ -87,6 +115,7 @@ class TransactionServiceTest {
         assertEquals(USE, transactionDto.getTransactionType());
         assertEquals(1000L, transactionDto.getAmount());
 
+        verify(accountRepository, times(1)).debitBalance(eq("1000000000"), eq(1L), eq(2000L), any());
         verify(transactionRepository, times(1)).save(captor.capture());
         assertEquals(2000L, captor.getValue().getAmount());
         assertEquals(8000L, captor.getValue().getBalanceSnapshot());
@@ -214,11 +243,86 @@ class TransactionServiceTest {
     }
 
     @Test
-    void saveFailedUseTransaction(){
+    @DisplayName("조건부 차감 실패 - 검증 통과 시 잔액 부족")
+    void useBalance_rejectedByConditionalUpdate(){
         //given
         AccountUser user = AccountUser.builder().id(12L).name("hello").build();
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(Account.builder()
+                        .accountUser(user)
+                        .accountStatus(AccountStatus.IN_USE)
+                        .accountNumber("1000000012")
+                        .balance(10000L)
+                        .build()));
 
+        //when
+        AccountException accountException = assertThrows(AccountException.class, () -> transactionService.useBalance(12L, "1000000012",1000L));
+
+        //then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, accountException.getErrorCode());
+        verify(transactionRepository, times(0)).save(any());
+    }
 
+    @Test
+    void useBalanceBatch_perItemResults(){
+        //given
+        AccountUser user = AccountUser.builder().id(12L).name("hello").build();
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .accountNumber("1000000012")
+                .balance(10000L)
+                .build();
+        Account debited = Account.builder()
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .accountNumber("1000000012")
+                .balance(0L)
+                .build();
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account), Optional.of(debited));
+        given(accountUserRepository.findAllById(any()))
+                .willReturn(Arrays.asList(user));
+        given(accountRepository.debitBalance(eq("1000000012"), eq(12L), eq(10000L), any()))
+                .willReturn(1);
+
+        List<UseBalance.Request> requests = Arrays.asList(
+                new UseBalance.Request(12L, "1000000012", 3000L),
+                new UseBalance.Request(12L, "1000000012", 9000L),
+                new UseBalance.Request(13L, "1000000012", 1000L),
+                new UseBalance.Request(12L, "1000000012", 7000L)
+        );
+        ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
+
+        //when
+        List<UseBalanceBatch.Item> items = transactionService.useBalanceBatch("1000000012", requests);
+
+        //then
+        assertEquals(4, items.size());
+        assertEquals(3000L, items.get(0).getResult().getAmount());
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, items.get(1).getErrorCode());
+        assertEquals(ErrorCode.USER_NOT_FOUND, items.get(2).getErrorCode());
+        assertEquals(7000L, items.get(3).getResult().getAmount());
+        verify(accountSummaryCache, times(1)).update(12L, debited);
+
+        verify(transactionRepository, times(1)).saveAll(captor.capture());
+        List<Transaction> saved = captor.getValue();
+        assertEquals(4, saved.size());
+        assertEquals(S, saved.get(0).getTransactionResultType());
+        assertEquals(7000L, saved.get(0).getBalanceSnapshot());
+        assertEquals(F, saved.get(1).getTransactionResultType());
+        assertEquals(F, saved.get(2).getTransactionResultType());
+        assertEquals(S, saved.get(3).getTransactionResultType());
+        assertEquals(0L, saved.get(3).getBalanceSnapshot());
+    }
+
+    @Test
+    void useBalanceBatch_conflictWhenBalanceMovedSinceRead(){
+        //given
+        AccountUser user = AccountUser.builder().id(12L).name("hello").build();
         Account account = Account.builder()
                 .accountUser(user)
                 .accountStatus(AccountStatus.IN_USE)
@@ -227,33 +331,126 @@ class TransactionServiceTest {
                 .build();
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(account));
+        given(accountUserRepository.findAllById(any()))
+                .willReturn(Arrays.asList(user));
+        given(accountRepository.debitBalance(anyString(), anyLong(), anyLong(), any()))
+                .willReturn(0);
 
-        given(transactionRepository.save(any()))
-                .willReturn(
-                        Transaction.builder()
-                                .account(account)
+        //when
+        //then
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> transactionService.useBalanceBatch("1000000012",
+                Arrays.asList(new UseBalance.Request(12L, "1000000012", 3000L))));
+        verify(transactionRepository, times(0)).saveAll(any());
+    }
+
+    @Test
+    void saveFailedTransactionsInBatch(){
+        //given
+        AccountUser user = AccountUser.builder().id(12L).name("hello").build();
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .accountNumber("1000000012")
+                .balance(10000L)
+                .build();
+        given(accountRepository.findByAccountNumberIn(any()))
+                .willReturn(Arrays.asList(account));
+        LocalDateTime failedAt = LocalDateTime.now().minusSeconds(1);
+        ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
+
+        //when
+        transactionService.saveFailedTransactions(Arrays.asList(
+                new FailedTransaction(USE, "1000000012", 1000L, failedAt),
+                new FailedTransaction(CANCEL, "1000000012", 2000L, failedAt),
+                new FailedTransaction(USE, "9999999999", 3000L, failedAt)));
+
+        //then
+        verify(transactionRepository, times(1)).saveAll(captor.capture());
+        List<Transaction> saved = captor.getValue();
+        assertEquals(2, saved.size());
+        assertEquals(USE, saved.get(0).getTransactionType());
+        assertEquals(CANCEL, saved.get(1).getTransactionType());
+        assertEquals(F, saved.get(1).getTransactionResultType());
+        assertEquals(10000L, saved.get(1).getBalanceSnapshot());
+        assertEquals(failedAt, saved.get(0).getTransactedAt());
+    }
+
+    @Test
+    void useBalanceWrittenToJournal(){
+        //given
+        AccountUser user = AccountUser.builder().id(12L).name("hello").build();
+        given(accountRepository.debitBalance(anyString(), anyLong(), anyLong(), any()))
+                .willReturn(1);
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(Account.builder()
+                        .id(1L)
+                        .accountUser(user)
+                        .accountStatus(AccountStatus.IN_USE)
+                        .accountNumber("1000000012")
+                        .balance(8000L)
+                        .build()));
+        given(transactionJournal.isEnabled()).willReturn(true);
+        given(transactionJournal.append(any())).willReturn(true);
+
+        //when
+        TransactionDto transactionDto = transactionService.useBalance(12L, "1000000012", 2000L);
+
+        //then
+        assertEquals(8000L, transactionDto.getBalanceSnapshot());
+        assertEquals("1000000012", transactionDto.getAccoutNumber());
+        verify(transactionRepository, times(0)).save(any());
+    }
+
+    @Test
+    void useBalanceRoutedToLedger(){
+        //given
+        given(ledgerEngine.owns(anyString()))
+                .willReturn(true);
+        given(ledgerEngine.useBalance(anyLong(), anyString(), anyLong()))
+                .willReturn(new LedgerResult(
+                        TransactionDto.builder()
+                                .accoutNumber("1000000012")
                                 .transactionType(USE)
                                 .transactionResultType(S)
                                 .transcationId("id")
-                                .transactedAt(LocalDateTime.now())
-                                .balanceSnapshot(9000L)
-                                .amount(1000L)
-                                .build()
-                );
+                                .balanceSnapshot(8000L)
+                                .amount(2000L)
+                                .build(),
+                        new LedgerAccount(1L, "1000000012", 12L, AccountStatus.IN_USE, 8000L, 3L)));
 
-        ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
         //when
-        transactionService.saveFailedUseTransaction( "1000000000", 2000L);
+        TransactionDto transactionDto = transactionService.useBalance(12L, "1000000012", 2000L);
 
         //then
+        assertEquals("id", transactionDto.getTranscationId());
+        assertEquals(8000L, transactionDto.getBalanceSnapshot());
+        verify(accountRepository, times(0)).debitBalance(anyString(), anyLong(), anyLong(), any());
+        verify(transactionRepository, times(0)).save(any());
+        verify(transactionCache).put(transactionDto);
+        verify(accountSummaryCache).update(eq(12L), any());
+    }
 
-        verify(transactionRepository, times(1)).save(captor.capture());
-        assertEquals(2000L, captor.getValue().getAmount());
-        assertEquals(10000L, captor.getValue().getBalanceSnapshot());
-        assertEquals(F, captor.getValue().getTransactionResultType());
+    @Test
+    void queryJournaledTransaction(){
+        //given
+        given(transactionJournal.findPending(anyString()))
+                .willReturn(Optional.of(Transaction.builder()
+                        .account(Account.builder().id(1L).accountNumber("1000000012").build())
+                        .transactionType(USE)
+                        .transactionResultType(S)
+                        .transcationId("id")
+                        .transactedAt(LocalDateTime.now())
+                        .balanceSnapshot(8000L)
+                        .amount(2000L)
+                        .build()));
 
-    }
+        //when
+        TransactionDto transactionDto = transactionService.queryTransaction("id");
 
+        //then
+        assertEquals("id", transactionDto.getTranscationId());
+        verify(transactionRepository, times(0)).findByTranscationId(anyString());
+    }
 
     @Test
     void successCancelBalance(){
@@ -529,6 +726,56 @@ class TransactionServiceTest {
         assertEquals(2000L, transactionDto.getAmount());
     }
 
+    @Test
+    void queryCachedTransaction(){
+        //given
+        given(transactionCache.get(anyString()))
+                .willReturn(Optional.of(TransactionDto.builder()
+                        .accoutNumber("1000000012")
+                        .transactionType(USE)
+                        .transactionResultType(S)
+                        .transcationId("id")
+                        .amount(2000L)
+                        .build()));
+
+        //when
+        TransactionDto transactionDto = transactionService.queryTransaction("id");
+
+        //then
+        assertEquals("id", transactionDto.getTranscationId());
+        assertEquals(2000L, transactionDto.getAmount());
+        verify(transactionRepository, times(0)).findByTranscationId(anyString());
+        verify(transactionJournal, times(0)).findPending(anyString());
+    }
+
+    @Test
+    void queryArchivedTransaction() {
+        //given
+        Account account = Account.builder().id(1L).accountNumber("1000000012").build();
+        given(transactionRepository.findByTranscationId(anyString()))
+                .willReturn(Optional.empty());
+        given(archivedTransactionRepository.findByTranscationId(anyString()))
+                .willReturn(Optional.of(ArchivedTransaction.builder()
+                        .account(account)
+                        .transactionType(USE)
+                        .transactionResultType(S)
+                        .transcationId("id")
+                        .transactedAt(LocalDateTime.now().minusYears(2))
+                        .balanceSnapshot(8000L)
+                        .amount(2000L)
+                        .build()));
+
+        //when
+        TransactionDto transactionDto = transactionService.queryTransaction("id");
+
+        //then
+        assertEquals("1000000012", transactionDto.getAccoutNumber());
+        assertEquals(USE, transactionDto.getTransactionType());
+        assertEquals("id", transactionDto.getTranscationId());
+        assertEquals(2000L, transactionDto.getAmount());
+        verify(transactionCache).put(transactionDto);
+    }
+
     @Test
     @DisplayName("원 거래 없음 - 잔액 조회 실패")
     void queryTranslation_TransactionNotFound() {